@@ -0,0 +1,193 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.metrics.MetricsSource;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded, least-recently-used cache with a per-entry time to live.
+ * Loaders run outside the lock, so a slow load never blocks readers of other keys.
+ * A load that overlaps an invalidation is returned but not cached, so it cannot
+ * bring back the value the invalidation removed.
+ */
+public class LruCache<K, V> implements MetricsSource {
+    
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    // Bumped by every invalidation; guarded by the entries monitor
+    private long generation;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    
+    public LruCache(String name, int maxSize, Duration ttl) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Cached value for the key, or null when absent or expired
+     */
+    public V get(K key) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (now - entry.expiresAt > 0) {
+                entries.remove(key);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+    
+    /**
+     * Read-through lookup: on a miss the loader's result is cached and returned
+     */
+    public V get(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            long loadStarted = generation();
+            value = loader.apply(key);
+            if (value != null) {
+                putUnlessInvalidatedSince(key, value, loadStarted);
+            }
+        }
+        return value;
+    }
+    
+    /**
+     * Current invalidation generation; take it before loading a value that is
+     * later stored with {@link #putUnlessInvalidatedSince}
+     */
+    public long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+    
+    /**
+     * Store a value loaded after {@link #generation()} returned the given one,
+     * unless something was invalidated since. Returns whether it was stored.
+     */
+    public boolean putUnlessInvalidatedSince(K key, V value, long loadStarted) {
+        Entry<V> entry = new Entry<>(value, System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            if (generation != loadStarted) {
+                return false;
+            }
+            entries.put(key, entry);
+            return true;
+        }
+    }
+    
+    public void put(K key, V value) {
+        Entry<V> entry = new Entry<>(value, System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+    
+    /**
+     * Store the value unless a live entry exists for the key. Returns the value of
+     * that entry, or null when the given value was stored.
+     */
+    public V putIfAbsent(K key, V value) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry<V> existing = entries.get(key);
+            if (existing != null) {
+                if (now - existing.expiresAt <= 0) {
+                    hits.increment();
+                    return existing.value;
+                }
+                expirations.increment();
+            }
+            misses.increment();
+            entries.put(key, new Entry<>(value, now + ttlNanos));
+            return null;
+        }
+    }
+    
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation++;
+            if (entries.remove(key) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+    
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            invalidations.add(entries.size());
+            entries.clear();
+        }
+    }
+    
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    @Override
+    public String getMetricsName() {
+        return name;
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", size());
+        metrics.put("maxSize", maxSize);
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        metrics.put("evictions", evictions.sum());
+        metrics.put("expirations", expirations.sum());
+        metrics.put("invalidations", invalidations.sum());
+        return metrics;
+    }
+    
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+        
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.ecommerce.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * One executor per notification channel, so a slow SMTP server backs up email
+ * only. Settings are read from {@code notification.<channel>.executor.*}.
+ */
+@Configuration
+@EnableAsync
+@RequiredArgsConstructor
+@Slf4j
+public class AsyncConfig implements AsyncConfigurer {
+    
+    public static final String EMAIL_EXECUTOR = "emailExecutor";
+    public static final String SMS_EXECUTOR = "smsExecutor";
+    
+    private final Environment environment;
+    private final ApplicationContext applicationContext;
+    
+    /**
+     * Boot only creates its default executor when no other Executor bean exists;
+     * keep it for streaming responses and unqualified {@code @Async}
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+    
+    @Bean(EMAIL_EXECUTOR)
+    public NotificationExecutor emailExecutor() {
+        return notificationExecutor(EMAIL_EXECUTOR, "notification.email.executor");
+    }
+    
+    @Bean(SMS_EXECUTOR)
+    public NotificationExecutor smsExecutor() {
+        return notificationExecutor(SMS_EXECUTOR, "notification.sms.executor");
+    }
+    
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> {
+            Async async = AnnotatedElementUtils.findMergedAnnotation(method, Async.class);
+            if (async == null) {
+                async = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), Async.class);
+            }
+            if (async != null && applicationContext.containsBean(async.value())
+                    && applicationContext.getBean(async.value()) instanceof NotificationExecutor executor) {
+                executor.recordFailure();
+            }
+            log.error("Async call {}.{} failed", method.getDeclaringClass().getSimpleName(), method.getName(), ex);
+        };
+    }
+    
+    private NotificationExecutor notificationExecutor(String name, String prefix) {
+        return new NotificationExecutor(name,
+                NotificationExecutor.Mode.valueOf(
+                        environment.getProperty(prefix + ".mode", "platform").trim().toUpperCase(Locale.ROOT)),
+                environment.getProperty(prefix + ".pool-size", Integer.class, 4),
+                environment.getProperty(prefix + ".queue-capacity", Integer.class, 500),
+                NotificationExecutor.RejectionPolicy.parse(environment.getProperty(prefix + ".rejection-policy", "abort")),
+                environment.getProperty(prefix + ".concurrency-limit", Integer.class, 100),
+                environment.getProperty(prefix + ".shutdown-timeout", Duration.class, Duration.ofSeconds(30)));
+    }
+}
\ No newline at end of file
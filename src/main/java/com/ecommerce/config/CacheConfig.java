@@ -0,0 +1,24 @@
+package com.ecommerce.config;
+
+import com.ecommerce.cache.LruCache;
+import com.ecommerce.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+    
+    @Value("${cache.products.max-size:10000}")
+    private int productCacheMaxSize;
+    
+    @Value("${cache.products.ttl:10m}")
+    private Duration productCacheTtl;
+    
+    @Bean
+    public LruCache<Long, Product> productCache() {
+        return new LruCache<>("productCache", productCacheMaxSize, productCacheTtl);
+    }
+}
@@ -0,0 +1,43 @@
+package com.ecommerce.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Cache-Control max-age per catalog endpoint. A zero max-age still lets clients
+ * keep a copy but makes them revalidate it with If-None-Match on every use.
+ */
+@Component
+public class CatalogHttpCacheProperties {
+    
+    @Value("${http.cache.products.list.max-age:60s}")
+    private Duration productListMaxAge;
+    
+    @Value("${http.cache.products.item.max-age:300s}")
+    private Duration productMaxAge;
+    
+    @Value("${http.cache.products.category.max-age:60s}")
+    private Duration categoryMaxAge;
+    
+    public CacheControl productList() {
+        return cacheControl(productListMaxAge);
+    }
+    
+    public CacheControl product() {
+        return cacheControl(productMaxAge);
+    }
+    
+    public CacheControl category() {
+        return cacheControl(categoryMaxAge);
+    }
+    
+    private static CacheControl cacheControl(Duration maxAge) {
+        if (maxAge.isZero() || maxAge.isNegative()) {
+            return CacheControl.noCache().cachePublic();
+        }
+        return CacheControl.maxAge(maxAge).cachePublic();
+    }
+}
@@ -1,11 +1,12 @@
 package com.ecommerce.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 
+import java.time.Duration;
 import java.util.Properties;
 
 @Configuration
@@ -23,9 +24,43 @@ public class EmailConfig {
     @Value("${spring.mail.password:your-app-password}")
     private String password;
     
+    @Value("${spring.mail.properties.mail.smtp.connectiontimeout:5000}")
+    private int connectionTimeout;
+    
+    @Value("${spring.mail.properties.mail.smtp.timeout:10000}")
+    private int readTimeout;
+    
+    @Value("${spring.mail.properties.mail.smtp.writetimeout:10000}")
+    private int writeTimeout;
+    
+    @Value("${mail.pool.max-connections:4}")
+    private int maxConnections;
+    
+    @Value("${mail.pool.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+    
+    @Value("${mail.pool.idle-timeout:30s}")
+    private Duration idleTimeout;
+    
+    @Value("${mail.pool.borrow-timeout:30s}")
+    private Duration borrowTimeout;
+    
+    @Bean
+    @ConditionalOnProperty(name = "mail.pool.enabled", havingValue = "true", matchIfMissing = true)
+    public PooledJavaMailSender pooledJavaMailSender() {
+        return configure(new PooledJavaMailSender(maxConnections, maxMessagesPerConnection, idleTimeout, borrowTimeout));
+    }
+    
+    /**
+     * Opens a new connection for every send
+     */
     @Bean
-    public JavaMailSender javaMailSender() {
-        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    @ConditionalOnProperty(name = "mail.pool.enabled", havingValue = "false")
+    public JavaMailSenderImpl javaMailSender() {
+        return configure(new JavaMailSenderImpl());
+    }
+    
+    private <T extends JavaMailSenderImpl> T configure(T mailSender) {
         mailSender.setHost(host);
         mailSender.setPort(port);
         mailSender.setUsername(username);
@@ -36,6 +71,9 @@ public class EmailConfig {
         props.put("mail.smtp.auth", "true");
         props.put("mail.smtp.starttls.enable", "true");
         props.put("mail.debug", "false");
+        props.put("mail.smtp.connectiontimeout", connectionTimeout);
+        props.put("mail.smtp.timeout", readTimeout);
+        props.put("mail.smtp.writetimeout", writeTimeout);
         
         return mailSender;
     }
@@ -0,0 +1,45 @@
+package com.ecommerce.config;
+
+import com.ecommerce.model.IdGenerators;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves each table-based id generator past the highest id already in its table,
+ * so databases whose rows were created with auto-increment ids keep working.
+ * Depends on the EntityManagerFactory so the schema update has already run.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdGeneratorSeeder {
+    
+    // Generator segment -> table whose ids it allocates
+    private static final Map<String, String> SEGMENTS = Map.of(
+            "orders", "orders",
+            "order_items", "order_items",
+            "cart_items", "cart_items");
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    
+    @PostConstruct
+    public void seed() {
+        SEGMENTS.forEach((segment, table) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            // A pooled generator hands out the block below the stored value, so stay a full block above
+            long floor = maxId + IdGenerators.ALLOCATION_SIZE + 1;
+            jdbcTemplate.update("INSERT INTO " + IdGenerators.TABLE + " (" + IdGenerators.NAME_COLUMN + ", "
+                    + IdGenerators.VALUE_COLUMN + ") VALUES (?, ?) ON DUPLICATE KEY UPDATE "
+                    + IdGenerators.VALUE_COLUMN + " = GREATEST(" + IdGenerators.VALUE_COLUMN + ", VALUES("
+                    + IdGenerators.VALUE_COLUMN + "))", segment, floor);
+            log.debug("Id generator {} seeded above {}", segment, maxId);
+        });
+    }
+}
\ No newline at end of file
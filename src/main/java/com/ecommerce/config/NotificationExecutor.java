@@ -0,0 +1,203 @@
+package com.ecommerce.config;
+
+import com.ecommerce.metrics.MetricsSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor of one notification channel. Tasks run on a fixed-size platform
+ * thread pool with a bounded queue, or on virtual threads capped by a
+ * concurrency limit (JDK 21+, where a full executor blocks the submitter
+ * instead of queueing). Queue wait, run time, failures and rejections are
+ * counted per channel.
+ */
+@Slf4j
+public class NotificationExecutor implements AsyncTaskExecutor, MetricsSource, DisposableBean {
+    
+    public enum Mode {
+        PLATFORM, VIRTUAL
+    }
+    
+    public enum RejectionPolicy {
+        ABORT(new ThreadPoolExecutor.AbortPolicy()),
+        CALLER_RUNS(new ThreadPoolExecutor.CallerRunsPolicy()),
+        DISCARD(new ThreadPoolExecutor.DiscardPolicy()),
+        DISCARD_OLDEST(new ThreadPoolExecutor.DiscardOldestPolicy());
+        
+        private final RejectedExecutionHandler handler;
+        
+        RejectionPolicy(RejectedExecutionHandler handler) {
+            this.handler = handler;
+        }
+        
+        public static RejectionPolicy parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported rejection policy: " + value);
+            }
+        }
+    }
+    
+    private final String name;
+    private final Mode mode;
+    private final RejectionPolicy rejectionPolicy;
+    private final int queueCapacity;
+    private final ThreadPoolTaskExecutor pool;
+    private final SimpleAsyncTaskExecutor virtualThreads;
+    
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder runNanos = new LongAdder();
+    private final LongAccumulator maxRunNanos = new LongAccumulator(Long::max, 0);
+    
+    // Set while one of this executor's tasks runs on the thread; true once it reported a failure
+    private final ThreadLocal<boolean[]> runningTask = new ThreadLocal<>();
+    
+    public NotificationExecutor(String name, Mode mode, int poolSize, int queueCapacity,
+                                RejectionPolicy rejectionPolicy, int concurrencyLimit, Duration shutdownTimeout) {
+        this.name = name;
+        this.rejectionPolicy = rejectionPolicy;
+        this.queueCapacity = queueCapacity;
+        SimpleAsyncTaskExecutor virtual = null;
+        if (mode == Mode.VIRTUAL) {
+            try {
+                virtual = new SimpleAsyncTaskExecutor(name + "-");
+                virtual.setVirtualThreads(true);
+                virtual.setConcurrencyLimit(concurrencyLimit);
+                virtual.setTaskTerminationTimeout(shutdownTimeout.toMillis());
+            } catch (UnsupportedOperationException e) {
+                log.warn("Virtual threads need JDK 21+; {} falls back to a platform thread pool", name);
+                virtual = null;
+            }
+        }
+        this.virtualThreads = virtual;
+        this.mode = virtual != null ? Mode.VIRTUAL : Mode.PLATFORM;
+        
+        if (virtual == null) {
+            pool = new ThreadPoolTaskExecutor();
+            pool.setThreadNamePrefix(name + "-");
+            pool.setCorePoolSize(poolSize);
+            pool.setMaxPoolSize(poolSize);
+            pool.setQueueCapacity(queueCapacity);
+            pool.setRejectedExecutionHandler((task, executor) -> {
+                rejected.increment();
+                rejectionPolicy.handler.rejectedExecution(task, executor);
+            });
+            pool.setWaitForTasksToCompleteOnShutdown(true);
+            pool.setAwaitTerminationMillis(shutdownTimeout.toMillis());
+            pool.initialize();
+        } else {
+            pool = null;
+        }
+    }
+    
+    @Override
+    public void execute(Runnable task) {
+        long enqueuedAt = System.nanoTime();
+        Runnable measured = () -> {
+            long startedAt = System.nanoTime();
+            long waited = startedAt - enqueuedAt;
+            queueWaitNanos.add(waited);
+            maxQueueWaitNanos.accumulate(waited);
+            active.incrementAndGet();
+            boolean[] failureReported = {false};
+            runningTask.set(failureReported);
+            try {
+                task.run();
+                if (failureReported[0]) {
+                    failed.increment();
+                } else {
+                    completed.increment();
+                }
+            } catch (RuntimeException | Error e) {
+                failed.increment();
+                throw e;
+            } finally {
+                runningTask.remove();
+                active.decrementAndGet();
+                long ran = System.nanoTime() - startedAt;
+                runNanos.add(ran);
+                maxRunNanos.accumulate(ran);
+            }
+        };
+        submitted.increment();
+        if (pool != null) {
+            pool.execute(measured);
+        } else {
+            virtualThreads.execute(measured);
+        }
+    }
+    
+    /**
+     * Count a failure that the task reported itself instead of throwing, such as
+     * an {@code @Async} void method whose exception went to the uncaught handler.
+     * Called from inside the task, it marks that task failed rather than
+     * completed, so each task is counted once.
+     */
+    public void recordFailure() {
+        boolean[] failureReported = runningTask.get();
+        if (failureReported != null) {
+            failureReported[0] = true;
+        } else {
+            failed.increment();
+        }
+    }
+    
+    @Override
+    public void destroy() throws Exception {
+        if (pool != null) {
+            pool.shutdown();
+        } else {
+            virtualThreads.close();
+        }
+    }
+    
+    @Override
+    public String getMetricsName() {
+        return name;
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long started = completed.sum() + failed.sum();
+        metrics.put("mode", mode);
+        if (pool != null) {
+            metrics.put("poolSize", pool.getPoolSize());
+            metrics.put("queueDepth", pool.getThreadPoolExecutor().getQueue().size());
+            metrics.put("queueCapacity", queueCapacity);
+            metrics.put("rejectionPolicy", rejectionPolicy);
+        } else {
+            metrics.put("concurrencyLimit", virtualThreads.getConcurrencyLimit());
+        }
+        metrics.put("active", active.get());
+        metrics.put("submitted", submitted.sum());
+        metrics.put("completed", completed.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("avgQueueWaitMillis", started == 0 ? 0 : queueWaitNanos.sum() / started / 1_000_000.0);
+        metrics.put("maxQueueWaitMillis", maxQueueWaitNanos.get() / 1_000_000.0);
+        metrics.put("avgRunMillis", started == 0 ? 0 : runNanos.sum() / started / 1_000_000.0);
+        metrics.put("maxRunMillis", maxRunNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+}
\ No newline at end of file
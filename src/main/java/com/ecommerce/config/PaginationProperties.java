@@ -0,0 +1,30 @@
+package com.ecommerce.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PaginationProperties {
+    
+    @Value("${pagination.default-size:20}")
+    private int defaultSize;
+    
+    @Value("${pagination.max-size:100}")
+    private int maxSize;
+    
+    /**
+     * Page request for a keyset query; the cursor itself is applied as an id bound
+     */
+    public Pageable pageable(Integer requestedSize) {
+        return PageRequest.of(0, resolveSize(requestedSize));
+    }
+    
+    public int resolveSize(Integer requestedSize) {
+        if (requestedSize == null || requestedSize <= 0) {
+            return defaultSize;
+        }
+        return Math.min(requestedSize, maxSize);
+    }
+}
\ No newline at end of file
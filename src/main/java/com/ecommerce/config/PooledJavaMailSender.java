@@ -0,0 +1,255 @@
+package com.ecommerce.config;
+
+import com.ecommerce.metrics.MetricsSource;
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link JavaMailSenderImpl} that keeps connected, authenticated SMTP
+ * transports between sends instead of running connect, STARTTLS and AUTH for
+ * every message. At most {@code maxConnections} transports to the host exist
+ * at once; a send waits up to {@code borrowTimeout} for one. A transport is
+ * closed after {@code maxMessagesPerConnection} messages or when it has been
+ * idle longer than {@code idleTimeout}, since servers drop quiet connections.
+ */
+@Slf4j
+public class PooledJavaMailSender extends JavaMailSenderImpl implements MetricsSource, DisposableBean {
+    
+    private final ConcurrentLinkedDeque<PooledTransport> idle = new ConcurrentLinkedDeque<>();
+    private final Semaphore permits;
+    private final int maxConnections;
+    private final int maxMessagesPerConnection;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private volatile boolean closed;
+    
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectionsReused = new LongAdder();
+    private final LongAdder connectionsDiscarded = new LongAdder();
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder messagesFailed = new LongAdder();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LongAdder sendCalls = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    
+    public PooledJavaMailSender(int maxConnections, int maxMessagesPerConnection,
+                                Duration idleTimeout, Duration borrowTimeout) {
+        this.permits = new Semaphore(maxConnections, true);
+        this.maxConnections = maxConnections;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.borrowTimeoutMillis = borrowTimeout.toMillis();
+    }
+    
+    /**
+     * Send all messages over one pooled transport. A reused transport that turns
+     * out to be dead before anything went over it is replaced once. Failing to
+     * connect fails the current message and all after it.
+     */
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        long started = System.nanoTime();
+        acquirePermit();
+        PooledTransport pooled = null;
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        int done = 0;
+        try {
+            pooled = borrow();
+            for (int i = 0; i < mimeMessages.length; i++) {
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessages[i];
+                if (pooled == null) {
+                    pooled = connect();
+                }
+                MessagingException failure = send(pooled, mimeMessages[i], true);
+                if (failure != null && pooled.reused && pooled.sent == 0 && !pooled.transport.isConnected()) {
+                    log.debug("Pooled SMTP connection was stale, reconnecting", failure);
+                    discard(pooled);
+                    pooled = null;
+                    pooled = connect();
+                    failure = send(pooled, mimeMessages[i], false);
+                }
+                if (failure == null) {
+                    messagesSent.increment();
+                } else {
+                    messagesFailed.increment();
+                    failedMessages.put(original, failure);
+                    if (!pooled.transport.isConnected()) {
+                        // The next message needs a new connection
+                        discard(pooled);
+                        pooled = null;
+                    }
+                }
+                done = i + 1;
+            }
+        } catch (AuthenticationFailedException e) {
+            throw new MailAuthenticationException(e);
+        } catch (MessagingException e) {
+            // Could not connect: every message not sent yet failed
+            for (int i = done; i < mimeMessages.length; i++) {
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessages[i];
+                if (failedMessages.putIfAbsent(original, e) == null) {
+                    messagesFailed.increment();
+                }
+            }
+            throw new MailSendException("Mail server connection failed", e, failedMessages);
+        } finally {
+            release(pooled);
+            permits.release();
+            sendCalls.increment();
+            sendNanos.add(System.nanoTime() - started);
+        }
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+    
+    private void acquirePermit() {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                borrowTimeouts.increment();
+                throw new MailSendException("No SMTP connection available within " + borrowTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while waiting for an SMTP connection", e);
+        }
+    }
+    
+    /**
+     * Most recently used idle transport, or a new one
+     */
+    private PooledTransport borrow() throws MessagingException {
+        long now = System.currentTimeMillis();
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (now - pooled.lastUsed <= idleTimeoutMillis) {
+                pooled.reused = true;
+                pooled.sent = 0;
+                connectionsReused.increment();
+                return pooled;
+            }
+            discard(pooled);
+        }
+        return connect();
+    }
+    
+    private PooledTransport connect() throws MessagingException {
+        PooledTransport pooled = new PooledTransport(connectTransport());
+        connectionsOpened.increment();
+        return pooled;
+    }
+    
+    /**
+     * Send one message; the failure is returned rather than thrown, so it stays
+     * apart from failures to connect
+     */
+    private MessagingException send(PooledTransport pooled, MimeMessage message, boolean prepare) {
+        try {
+            if (prepare) {
+                prepare(message);
+            }
+            Address[] addresses = message.getAllRecipients();
+            pooled.transport.sendMessage(message, addresses != null ? addresses : new Address[0]);
+        } catch (MessagingException e) {
+            return e;
+        }
+        pooled.sent++;
+        pooled.total++;
+        pooled.lastUsed = System.currentTimeMillis();
+        return null;
+    }
+    
+    private void release(PooledTransport pooled) {
+        if (pooled == null) {
+            return;
+        }
+        if (closed || pooled.total >= maxMessagesPerConnection) {
+            discard(pooled);
+        } else {
+            idle.offerFirst(pooled);
+        }
+    }
+    
+    private void discard(PooledTransport pooled) {
+        connectionsDiscarded.increment();
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection", e);
+        }
+    }
+    
+    /**
+     * Same header handling as {@link JavaMailSenderImpl#doSend}
+     */
+    private static void prepare(MimeMessage message) throws MessagingException {
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        String messageId = message.getMessageID();
+        message.saveChanges();
+        if (messageId != null) {
+            message.setHeader("Message-ID", messageId);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        closed = true;
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+    
+    @Override
+    public String getMetricsName() {
+        return "smtpPool";
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        long calls = sendCalls.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("maxConnections", maxConnections);
+        metrics.put("inUse", maxConnections - permits.availablePermits());
+        metrics.put("idle", idle.size());
+        metrics.put("connectionsOpened", connectionsOpened.sum());
+        metrics.put("connectionsReused", connectionsReused.sum());
+        metrics.put("connectionsClosed", connectionsDiscarded.sum());
+        metrics.put("messagesSent", messagesSent.sum());
+        metrics.put("messagesFailed", messagesFailed.sum());
+        metrics.put("borrowTimeouts", borrowTimeouts.sum());
+        metrics.put("avgSendMillis", calls == 0 ? 0 : sendNanos.sum() / calls / 1_000_000.0);
+        return metrics;
+    }
+    
+    private static final class PooledTransport {
+        private final Transport transport;
+        private long lastUsed = System.currentTimeMillis();
+        private int total;
+        // Per borrow
+        private int sent;
+        private boolean reused;
+        
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
\ No newline at end of file
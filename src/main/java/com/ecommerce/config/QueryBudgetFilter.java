@@ -0,0 +1,74 @@
+package com.ecommerce.config;
+
+import com.ecommerce.metrics.MetricsSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the SQL statements each request runs and reports requests over budget
+ */
+@Component
+@Slf4j
+public class QueryBudgetFilter extends OncePerRequestFilter implements MetricsSource {
+    
+    @Value("${jpa.query-budget.max-statements-per-request:10}")
+    private int budget;
+    
+    @Value("${jpa.query-budget.strict:false}")
+    private boolean strict;
+    
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder overBudget = new LongAdder();
+    private final LongAccumulator maxPerRequest = new LongAccumulator(Math::max, 0);
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        QueryCounter.begin(budget, strict);
+        int count = 0;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            count = QueryCounter.end();
+        }
+        
+        requests.increment();
+        statements.add(count);
+        maxPerRequest.accumulate(count);
+        if (count > budget) {
+            overBudget.increment();
+            log.warn("{} {} ran {} SQL statements, budget is {}",
+                    request.getMethod(), request.getRequestURI(), count, budget);
+        }
+    }
+    
+    @Override
+    public String getMetricsName() {
+        return "queryBudget";
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("budget", budget);
+        metrics.put("strict", strict);
+        metrics.put("requests", requests.sum());
+        metrics.put("statements", statements.sum());
+        metrics.put("requestsOverBudget", overBudget.sum());
+        metrics.put("maxStatementsPerRequest", maxPerRequest.get());
+        return metrics;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.ecommerce.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Registered through {@code hibernate.session_factory.statement_inspector};
+ * counts statements without changing them
+ */
+public class QueryCountInspector implements StatementInspector {
+    
+    private static final long serialVersionUID = 1L;
+    
+    @Override
+    public String inspect(String sql) {
+        QueryCounter.increment(sql);
+        return sql;
+    }
+}
\ No newline at end of file
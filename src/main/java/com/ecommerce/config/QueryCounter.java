@@ -0,0 +1,55 @@
+package com.ecommerce.config;
+
+/**
+ * Per-thread count of SQL statements issued through Hibernate. A request (or a
+ * test) opens a scope with {@link #begin}; in strict mode the statement that
+ * exceeds the budget fails, which turns an N+1 regression into an error.
+ */
+public final class QueryCounter {
+    
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    
+    private QueryCounter() {
+    }
+    
+    public static void begin(int budget, boolean strict) {
+        CURRENT.set(new Scope(budget, strict));
+    }
+    
+    /**
+     * Close the current scope and return the number of statements it saw
+     */
+    public static int end() {
+        Scope scope = CURRENT.get();
+        CURRENT.remove();
+        return scope == null ? 0 : scope.count;
+    }
+    
+    public static int current() {
+        Scope scope = CURRENT.get();
+        return scope == null ? 0 : scope.count;
+    }
+    
+    static void increment(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        scope.count++;
+        if (scope.strict && scope.count > scope.budget) {
+            throw new IllegalStateException("Query budget of " + scope.budget
+                    + " statements exceeded by: " + sql);
+        }
+    }
+    
+    private static final class Scope {
+        private final int budget;
+        private final boolean strict;
+        private int count;
+        
+        private Scope(int budget, boolean strict) {
+            this.budget = budget;
+            this.strict = strict;
+        }
+    }
+}
\ No newline at end of file
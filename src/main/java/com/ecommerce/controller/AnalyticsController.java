@@ -0,0 +1,47 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.CategorySales;
+import com.ecommerce.dto.ProductSales;
+import com.ecommerce.dto.SalesSummary;
+import com.ecommerce.model.SalesRollup;
+import com.ecommerce.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class AnalyticsController {
+    
+    private final SalesRollupService salesRollupService;
+    
+    @GetMapping("/sales")
+    public ResponseEntity<SalesSummary> getSales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) SalesRollup.Granularity granularity) {
+        return ResponseEntity.ok(salesRollupService.getSummary(from, to, granularity));
+    }
+    
+    @GetMapping("/products")
+    public ResponseEntity<List<ProductSales>> getTopProducts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "units") String sort) {
+        return ResponseEntity.ok(salesRollupService.getTopProducts(from, to, limit, "revenue".equalsIgnoreCase(sort)));
+    }
+    
+    @GetMapping("/categories")
+    public ResponseEntity<List<CategorySales>> getSalesByCategory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(salesRollupService.getSalesByCategory(from, to));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.metrics.MetricsSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:3000")
+public class MetricsController {
+    
+    private final List<MetricsSource> metricsSources;
+    
+    @GetMapping
+    public ResponseEntity<Map<String, Map<String, Object>>> getMetrics() {
+        Map<String, Map<String, Object>> metrics = new TreeMap<>();
+        for (MetricsSource source : metricsSources) {
+            metrics.put(source.getMetricsName(), source.getMetrics());
+        }
+        return ResponseEntity.ok(metrics);
+    }
+    
+    @GetMapping("/{name}")
+    public ResponseEntity<Map<String, Object>> getMetrics(@PathVariable String name) {
+        return metricsSources.stream()
+                .filter(source -> source.getMetricsName().equals(name))
+                .findFirst()
+                .map(source -> ResponseEntity.ok(source.getMetrics()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
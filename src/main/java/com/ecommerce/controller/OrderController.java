@@ -1,14 +1,25 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.BulkStatusUpdateRequest;
+import com.ecommerce.dto.BulkStatusUpdateResult;
 import com.ecommerce.dto.CreateOrderRequest;
+import com.ecommerce.dto.CursorPage;
 import com.ecommerce.dto.UpdatePaymentRequest;
 import com.ecommerce.model.Order;
+import com.ecommerce.service.BulkOrderStatusService;
+import com.ecommerce.service.IdempotencyService;
+import com.ecommerce.service.OrderExportService;
 import com.ecommerce.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,30 +29,68 @@ import java.util.List;
 public class OrderController {
     
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final IdempotencyService idempotencyService;
+    private final BulkOrderStatusService bulkOrderStatusService;
     
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<CursorPage<Order>> getAllOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(orderService.getAllOrders(cursor, size));
+    }
+    
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Order.OrderStatus status) {
+        OrderExportService.Format exportFormat = OrderExportService.Format.parse(format);
+        MediaType contentType = exportFormat == OrderExportService.Format.CSV
+                ? MediaType.parseMediaType("text/csv")
+                : MediaType.APPLICATION_NDJSON;
+        String filename = "orders." + exportFormat.name().toLowerCase();
+        
+        StreamingResponseBody body = out -> orderExportService.export(out, exportFormat, from, to, status);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
     }
     
     @GetMapping("/{id}")
     public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.getOrderById(id));
+        return ResponseEntity.ok(orderService.getOrderIncludingArchive(id));
     }
     
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Order>> getOrdersByUserId(@PathVariable Long userId) {
-        return ResponseEntity.ok(orderService.getOrdersByUserId(userId));
+    public ResponseEntity<CursorPage<Order>> getOrdersByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(orderService.getOrdersByUserId(userId, cursor, size));
+    }
+    
+    @GetMapping("/user/{userId}/history")
+    public ResponseEntity<List<Order>> getOrderHistory(
+            @PathVariable Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(orderService.getOrderHistory(userId, from, to));
     }
     
     @PostMapping
-    public ResponseEntity<Order> createOrder(@RequestBody CreateOrderRequest request) {
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(orderService.createOrder(
-                        request.getUserId(),
-                        request.getShippingAddress(),
-                        request.getPaymentMethod()
-                ));
+    public ResponseEntity<Order> createOrder(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody CreateOrderRequest request) {
+        return idempotencyService.execute("orders", idempotencyKey, request, () ->
+                ResponseEntity.status(HttpStatus.CREATED)
+                        .body(orderService.createOrder(
+                                request.getUserId(),
+                                request.getShippingAddress(),
+                                request.getPaymentMethod()
+                        )));
     }
     
     @PutMapping("/{id}/status")
@@ -51,6 +100,11 @@ public class OrderController {
         return ResponseEntity.ok(orderService.updateOrderStatus(id, status));
     }
     
+    @PutMapping("/bulk-status")
+    public ResponseEntity<BulkStatusUpdateResult> updateOrderStatuses(@RequestBody BulkStatusUpdateRequest request) {
+        return ResponseEntity.ok(bulkOrderStatusService.updateStatus(request));
+    }
+    
     @PutMapping("/{id}/payment")
     public ResponseEntity<Order> updatePayment(
             @PathVariable Long id,
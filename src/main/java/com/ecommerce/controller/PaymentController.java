@@ -2,6 +2,7 @@ package com.ecommerce.controller;
 
 import com.ecommerce.dto.PaymentRequest;
 import com.ecommerce.dto.PaymentResponse;
+import com.ecommerce.service.IdempotencyService;
 import com.ecommerce.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -14,11 +15,16 @@ import org.springframework.web.bind.annotation.*;
 public class PaymentController {
     
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
     
     @PostMapping("/process")
-    public ResponseEntity<PaymentResponse> processPayment(@RequestBody PaymentRequest request) {
-        PaymentResponse response = paymentService.processPayment(request);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<PaymentResponse> processPayment(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody PaymentRequest request) {
+        return idempotencyService.execute("payments", idempotencyKey, request, () -> {
+            PaymentResponse response = paymentService.processPayment(request);
+            return ResponseEntity.ok(response);
+        });
     }
     
     @PostMapping("/stripe")
@@ -1,14 +1,24 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.config.CatalogHttpCacheProperties;
+import com.ecommerce.dto.CursorPage;
+import com.ecommerce.dto.ProductImportResult;
 import com.ecommerce.model.Product;
+import com.ecommerce.service.ProductImportService;
 import com.ecommerce.service.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -17,20 +27,39 @@ import java.util.List;
 public class ProductController {
     
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final CatalogHttpCacheProperties httpCache;
+    
+    // GET responses carrying an ETag are answered with 304 and no body by Spring MVC
+    // when If-None-Match matches, so unchanged catalog data is never serialized.
     
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<CursorPage<Product>> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Product> page = productService.getAllProducts(cursor, size);
+        return ResponseEntity.ok()
+                .eTag(listETag("page", page.getItems(), page.isHasMore()))
+                .cacheControl(httpCache.productList())
+                .body(page);
     }
     
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+        Product product = productService.getProductById(id);
+        return ResponseEntity.ok()
+                .eTag(productETag(product))
+                .cacheControl(httpCache.product())
+                .body(product);
     }
     
     @GetMapping("/category/{category}")
     public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(productService.getProductsByCategory(category));
+        List<Product> products = productService.getProductsByCategory(category);
+        return ResponseEntity.ok()
+                .eTag(listETag("category", products, false))
+                .cacheControl(httpCache.category())
+                .body(products);
     }
     
     @GetMapping("/search")
@@ -38,12 +67,28 @@ public class ProductController {
         return ResponseEntity.ok(productService.searchProducts(keyword));
     }
     
+    @GetMapping("/facets")
+    public ResponseEntity<Map<String, Integer>> getCategoryFacets(
+            @RequestParam(required = false) String keyword) {
+        return ResponseEntity.ok(productService.getCategoryFacets(keyword));
+    }
+    
     @PostMapping
     public ResponseEntity<Product> createProduct(@Valid @RequestBody Product product) {
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(productService.createProduct(product));
     }
     
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ProductImportResult> importProductsNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(productImportService.importNdjson(body));
+    }
+    
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ProductImportResult> importProductsCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(productImportService.importCsv(body));
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(
             @PathVariable Long id,
@@ -56,4 +101,26 @@ public class ProductController {
         productService.deleteProduct(id);
         return ResponseEntity.noContent().build();
     }
+    
+    private static String productETag(Product product) {
+        return "\"p" + product.getId() + "-" + Long.toHexString(versionOf(product.getUpdatedAt())) + "\"";
+    }
+    
+    private static String listETag(String prefix, List<Product> products, boolean hasMore) {
+        long hash = 17;
+        for (Product product : products) {
+            hash = 31 * hash + product.getId();
+            hash = 31 * hash + versionOf(product.getUpdatedAt());
+        }
+        hash = 31 * hash + (hasMore ? 1 : 0);
+        return "\"" + prefix + products.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+    
+    private static long versionOf(LocalDateTime updatedAt) {
+        if (updatedAt == null) {
+            return 0L;
+        }
+        // Millisecond precision so in-memory and reloaded copies agree
+        return updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
 }
\ No newline at end of file
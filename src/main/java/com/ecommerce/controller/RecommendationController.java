@@ -2,6 +2,7 @@ package com.ecommerce.controller;
 
 import com.ecommerce.model.Product;
 import com.ecommerce.service.RecommendationService;
+import com.ecommerce.service.SalesPopularityTracker;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -32,8 +33,10 @@ public class RecommendationController {
     
     @GetMapping("/popular")
     public ResponseEntity<List<Product>> getPopularProducts(
-            @RequestParam(defaultValue = "10") int limit) {
-        return ResponseEntity.ok(recommendationService.getPopularProducts(limit));
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "24h") String window) {
+        return ResponseEntity.ok(recommendationService.getPopularProducts(
+                SalesPopularityTracker.Window.parse(window), limit));
     }
     
     @GetMapping("/frequently-bought-together/{productId}")
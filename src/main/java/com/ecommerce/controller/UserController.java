@@ -1,5 +1,6 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.CursorPage;
 import com.ecommerce.model.User;
 import com.ecommerce.service.UserService;
 import jakarta.validation.Valid;
@@ -8,8 +9,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
@@ -19,8 +18,10 @@ public class UserController {
     private final UserService userService;
     
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<CursorPage<User>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(userService.getAllUsers(cursor, size));
     }
     
     @GetMapping("/{id}")
@@ -0,0 +1,20 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.Order;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Either an explicit list of order ids, or a filter on current status and
+ * creation time selecting the orders to move to {@code status}
+ */
+@Data
+public class BulkStatusUpdateRequest {
+    private Order.OrderStatus status;
+    private List<Long> orderIds;
+    private Order.OrderStatus currentStatus;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+}
\ No newline at end of file
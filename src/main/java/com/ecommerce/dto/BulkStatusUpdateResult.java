@@ -0,0 +1,33 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkStatusUpdateResult {
+    private Order.OrderStatus status;
+    private long requested;
+    private long updated;
+    private long unchanged;
+    private long rejected;
+    private long notFound;
+    private List<Item> results = new ArrayList<>();
+    
+    public enum Outcome {
+        UPDATED, UNCHANGED, REJECTED, NOT_FOUND
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long orderId;
+        private Outcome outcome;
+        private Order.OrderStatus previousStatus;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.pricing.Money;
+import lombok.Data;
+
+@Data
+public class CategorySales {
+    private String category;
+    private long units;
+    private double revenue;
+    
+    public CategorySales(String category, Long units, Long revenueCents) {
+        this.category = category;
+        this.units = units;
+        this.revenue = Money.toAmount(revenueCents);
+    }
+}
\ No newline at end of file
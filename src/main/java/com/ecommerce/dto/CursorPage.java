@@ -0,0 +1,64 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. Pass {@code nextCursor} back as the
+ * {@code cursor} parameter to fetch the following page.
+ * <p>
+ * Pages are in id order. Order ids come from per-instance blocks (see
+ * {@link com.ecommerce.model.IdGenerators}), so an order created while a client
+ * pages can get an id below its cursor and show up on no later page. A walk
+ * from the first page never skips or repeats rows that existed when it started.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    
+    private static final String CURSOR_PREFIX = "id:";
+    
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+    
+    public static <T> CursorPage<T> of(Slice<T> slice, Function<T, Long> idExtractor) {
+        List<T> items = slice.getContent();
+        String nextCursor = slice.hasNext() && !items.isEmpty()
+                ? encodeCursor(idExtractor.apply(items.get(items.size() - 1)))
+                : null;
+        return new CursorPage<>(items, nextCursor, slice.hasNext());
+    }
+    
+    public static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decode a cursor into the last id already returned, or 0 for the first page.
+     * A cursor the client made up or mangled is a 400.
+     */
+    public static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(CURSOR_PREFIX)) {
+                return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // Not Base64, or no number after the prefix
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ProductImportResult {
+    private long processed;
+    private long imported;
+    private long failed;
+    private List<RowError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
\ No newline at end of file
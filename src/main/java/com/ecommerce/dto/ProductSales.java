@@ -0,0 +1,19 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.pricing.Money;
+import lombok.Data;
+
+@Data
+public class ProductSales {
+    private Long productId;
+    private String category;
+    private long units;
+    private double revenue;
+    
+    public ProductSales(Long productId, String category, Long units, Long revenueCents) {
+        this.productId = productId;
+        this.category = category;
+        this.units = units;
+        this.revenue = Money.toAmount(revenueCents);
+    }
+}
\ No newline at end of file
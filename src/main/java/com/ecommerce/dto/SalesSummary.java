@@ -0,0 +1,29 @@
+package com.ecommerce.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+public class SalesSummary {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String granularity;
+    private long orderCount;
+    private long units;
+    private double revenue;
+    private double averageOrderValue;
+    private List<Period> periods;
+    
+    @Data
+    @Builder
+    public static class Period {
+        private LocalDateTime start;
+        private long orderCount;
+        private long units;
+        private double revenue;
+    }
+}
\ No newline at end of file
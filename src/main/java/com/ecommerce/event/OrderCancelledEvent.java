@@ -0,0 +1,36 @@
+package com.ecommerce.event;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Published inside the transaction that cancels an order, or deletes one that
+ * was not cancelled, so in-memory sales counts can take it back out. Listeners
+ * should use {@code @TransactionalEventListener}.
+ */
+@Data
+@AllArgsConstructor
+public class OrderCancelledEvent {
+    
+    private Long orderId;
+    private LocalDateTime createdAt;
+    private List<OrderCreatedEvent.Line> lines;
+    
+    public static OrderCancelledEvent of(Order order) {
+        List<OrderCreatedEvent.Line> lines = new ArrayList<>(order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            lines.add(new OrderCreatedEvent.Line(
+                    item.getProduct().getId(),
+                    item.getProduct().getCategory(),
+                    item.getQuantity(),
+                    item.getPrice()));
+        }
+        return new OrderCancelledEvent(order.getId(), order.getCreatedAt(), lines);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.ecommerce.event;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Published inside the checkout transaction; listeners that need committed data
+ * should use {@code @TransactionalEventListener}.
+ */
+@Data
+@AllArgsConstructor
+public class OrderCreatedEvent {
+    
+    private Long orderId;
+    private Long userId;
+    private LocalDateTime createdAt;
+    private List<Line> lines;
+    
+    public static OrderCreatedEvent of(Order order) {
+        List<Line> lines = new ArrayList<>(order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            lines.add(new Line(
+                    item.getProduct().getId(),
+                    item.getProduct().getCategory(),
+                    item.getQuantity(),
+                    item.getPrice()));
+        }
+        return new OrderCreatedEvent(order.getId(), order.getUser().getId(), order.getCreatedAt(), lines);
+    }
+    
+    @Data
+    @AllArgsConstructor
+    public static class Line {
+        private Long productId;
+        private String category;
+        private Integer quantity;
+        private Double unitPrice;
+    }
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.metrics;
+
+import java.util.Map;
+
+/**
+ * A component that reports operational counters under {@code /api/metrics}
+ */
+public interface MetricsSource {
+    
+    String getMetricsName();
+    
+    Map<String, Object> getMetrics();
+}
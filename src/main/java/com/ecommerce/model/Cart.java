@@ -1,5 +1,7 @@
 package com.ecommerce.model;
 
+import com.ecommerce.pricing.Money;
+import com.ecommerce.pricing.PriceBreakdown;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -33,6 +35,10 @@ public class Cart {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Totals after discounts, tax and shipping; filled in by CartService
+    @Transient
+    private PriceBreakdown pricing;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -44,9 +50,19 @@ public class Cart {
         updatedAt = LocalDateTime.now();
     }
     
+    /**
+     * What checkout charges, from the {@link #pricing} breakdown; the plain sum
+     * of the lines for a cart that has not been priced
+     */
     public Double getTotalPrice() {
-        return items.stream()
-                .mapToDouble(CartItem::getSubtotal)
-                .sum();
+        if (pricing != null) {
+            return pricing.getTotal();
+        }
+        long cents = 0;
+        for (int i = 0; i < items.size(); i++) {
+            CartItem item = items.get(i);
+            cents += Money.toCents(item.getProduct().getPrice()) * item.getQuantity();
+        }
+        return Money.toAmount(cents);
     }
 }
\ No newline at end of file
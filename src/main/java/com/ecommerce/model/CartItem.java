@@ -1,5 +1,6 @@
 package com.ecommerce.model;
 
+import com.ecommerce.pricing.Money;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Positive;
@@ -15,7 +16,10 @@ import lombok.NoArgsConstructor;
 public class CartItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cart_item_id_generator")
+    @TableGenerator(name = "cart_item_id_generator", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "cart_items", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
     
     @ManyToOne
@@ -32,6 +36,6 @@ public class CartItem {
     private Integer quantity;
     
     public Double getSubtotal() {
-        return product.getPrice() * quantity;
+        return Money.toAmount(Money.toCents(product.getPrice()) * quantity);
     }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.ecommerce.model;
+
+/**
+ * Shared settings of the table-based id generators used by the high-volume
+ * write path. Ids are handed out in blocks, so Hibernate knows them before the
+ * insert and can batch inserts, unlike IDENTITY columns. Each instance draws
+ * its own blocks, so ids are unique but only roughly follow creation order
+ * when several instances write.
+ */
+public final class IdGenerators {
+    
+    public static final String TABLE = "id_generators";
+    public static final String NAME_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+    
+    private IdGenerators() {
+    }
+}
\ No newline at end of file
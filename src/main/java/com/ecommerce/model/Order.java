@@ -10,14 +10,20 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_created_at", columnList = "created_at"),
+        @Index(name = "idx_orders_status", columnList = "status")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_id_generator")
+    @TableGenerator(name = "order_id_generator", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "orders", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
     
     @ManyToOne
@@ -62,6 +68,20 @@ public class Order {
     }
     
     public enum OrderStatus {
-        PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED
+        PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED;
+        
+        /**
+         * Orders only move forward through the fulfilment steps and can be
+         * cancelled until they ship; DELIVERED and CANCELLED are final
+         */
+        public boolean canTransitionTo(OrderStatus target) {
+            if (this == DELIVERED || this == CANCELLED) {
+                return false;
+            }
+            if (target == CANCELLED) {
+                return this == PENDING || this == CONFIRMED;
+            }
+            return target.ordinal() > ordinal();
+        }
     }
 }
\ No newline at end of file
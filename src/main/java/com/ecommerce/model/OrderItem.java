@@ -1,5 +1,6 @@
 package com.ecommerce.model;
 
+import com.ecommerce.pricing.Money;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -14,7 +15,10 @@ import lombok.NoArgsConstructor;
 public class OrderItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_item_id_generator")
+    @TableGenerator(name = "order_item_id_generator", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "order_items", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
     
     @ManyToOne
@@ -33,6 +37,6 @@ public class OrderItem {
     private Double price;
     
     public Double getSubtotal() {
-        return price * quantity;
+        return Money.toAmount(Money.toCents(price) * quantity);
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An order lifecycle event written in the same transaction as the order change
+ * and removed once the dispatcher has delivered it
+ */
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_next_attempt", columnList = "next_attempt_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 40)
+    private EventType eventType;
+    
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+    
+    @Column(length = 1000)
+    private String payload;
+    
+    @Column(nullable = false)
+    private int attempts;
+    
+    // Null once the event has used up its attempts and is parked
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+    
+    public enum EventType {
+        ORDER_CREATED, ORDER_PAID, ORDER_STATUS_CHANGED
+    }
+}
\ No newline at end of file
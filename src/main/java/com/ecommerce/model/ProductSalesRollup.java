@@ -0,0 +1,45 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Units and line revenue of one product in one hour or day. The category is the
+ * product's category at the time of sale.
+ */
+@Entity
+@Table(name = "product_sales_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_product_sales_rollups_period",
+                columnNames = {"granularity", "period_start", "product_id"}),
+        indexes = @Index(name = "idx_product_sales_rollups_category", columnList = "granularity, period_start, category"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private SalesRollup.Granularity granularity;
+    
+    @Column(name = "period_start", nullable = false)
+    private LocalDateTime periodStart;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    private String category;
+    
+    @Column(nullable = false)
+    private long units;
+    
+    @Column(name = "revenue_cents", nullable = false)
+    private long revenueCents;
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order totals of one hour or day, maintained incrementally as orders are placed
+ * and cancelled. Revenue is the sum of order totals in cents.
+ */
+@Entity
+@Table(name = "sales_rollups", uniqueConstraints = @UniqueConstraint(
+        name = "uk_sales_rollups_period", columnNames = {"granularity", "period_start"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularity granularity;
+    
+    @Column(name = "period_start", nullable = false)
+    private LocalDateTime periodStart;
+    
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+    
+    @Column(nullable = false)
+    private long units;
+    
+    @Column(name = "revenue_cents", nullable = false)
+    private long revenueCents;
+    
+    public enum Granularity {
+        HOUR, DAY
+    }
+}
\ No newline at end of file
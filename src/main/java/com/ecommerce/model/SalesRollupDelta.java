@@ -0,0 +1,47 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change to one {@link SalesRollup} (no product) or {@link ProductSalesRollup}
+ * row, written in the transaction of the order it comes from and folded into
+ * the rollups by the next flush. Only ever inserted, so checkouts never wait on
+ * each other for it.
+ */
+@Entity
+@Table(name = "sales_rollup_deltas")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollupDelta {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private SalesRollup.Granularity granularity;
+    
+    @Column(name = "period_start", nullable = false)
+    private LocalDateTime periodStart;
+    
+    @Column(name = "product_id")
+    private Long productId;
+    
+    private String category;
+    
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+    
+    @Column(nullable = false)
+    private long units;
+    
+    @Column(name = "revenue_cents", nullable = false)
+    private long revenueCents;
+}
\ No newline at end of file
@@ -38,6 +38,10 @@ public class User {
     @Column(length = 500)
     private String address;
     
+    // BCP 47 tag such as "de-DE" for emails; null uses email.default-locale
+    @Column(length = 35)
+    private String locale;
+    
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
     
@@ -0,0 +1,30 @@
+package com.ecommerce.pricing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Percentage off the subtotal once it reaches a minimum
+ */
+@Component
+@Order(100)
+public class DiscountRule implements PriceRule {
+    
+    private final long basisPoints;
+    private final long minSubtotalCents;
+    
+    public DiscountRule(@Value("${pricing.discount.percent:0}") double percent,
+                        @Value("${pricing.discount.min-subtotal:0}") double minSubtotal) {
+        this.basisPoints = Math.round(percent * 100);
+        this.minSubtotalCents = Money.toCents(minSubtotal);
+    }
+    
+    @Override
+    public void complete(PriceBreakdown breakdown) {
+        if (basisPoints > 0 && breakdown.getSubtotalCents() >= minSubtotalCents) {
+            breakdown.setDiscountCents(breakdown.getDiscountCents()
+                    + Money.percentOf(breakdown.getSubtotalCents(), basisPoints));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.ecommerce.pricing;
+
+/**
+ * Conversions between the double amounts stored on entities and the long minor
+ * units (cents) all price arithmetic is done in
+ */
+public final class Money {
+    
+    private Money() {
+    }
+    
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+    
+    public static double toAmount(long cents) {
+        return cents / 100.0;
+    }
+    
+    /**
+     * {@code cents * basisPoints / 10000}, rounded half up
+     */
+    public static long percentOf(long cents, long basisPoints) {
+        return (cents * basisPoints + 5_000) / 10_000;
+    }
+}
\ No newline at end of file
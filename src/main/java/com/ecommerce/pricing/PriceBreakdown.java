@@ -0,0 +1,25 @@
+package com.ecommerce.pricing;
+
+import lombok.Data;
+
+/**
+ * Totals of a cart or order in cents. Filled in by {@link PricingEngine} and
+ * adjusted in place by the {@link PriceRule}s.
+ */
+@Data
+public class PriceBreakdown {
+    private int lineCount;
+    private long unitCount;
+    private long subtotalCents;
+    private long discountCents;
+    private long taxCents;
+    private long shippingCents;
+    
+    public long getTotalCents() {
+        return subtotalCents - discountCents + taxCents + shippingCents;
+    }
+    
+    public double getTotal() {
+        return Money.toAmount(getTotalCents());
+    }
+}
\ No newline at end of file
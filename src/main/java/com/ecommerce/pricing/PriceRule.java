@@ -0,0 +1,14 @@
+package com.ecommerce.pricing;
+
+/**
+ * A discount, tax or charge applied while pricing. Rules are Spring beans run in
+ * {@link org.springframework.core.annotation.Order} order; each sees every line
+ * during the engine's single pass and then adjusts the totals once.
+ */
+public interface PriceRule {
+    
+    default void onLine(PriceBreakdown breakdown, long unitPriceCents, int quantity) {
+    }
+    
+    void complete(PriceBreakdown breakdown);
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.ecommerce.pricing;
+
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.OrderItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Prices carts and orders in long cents in one pass over the lines. Apart from
+ * the returned breakdown nothing is allocated: no streams, iterators or boxed
+ * intermediates.
+ */
+@Component
+@RequiredArgsConstructor
+public class PricingEngine {
+    
+    private final List<PriceRule> rules;
+    
+    public PriceBreakdown priceCart(List<CartItem> items) {
+        PriceBreakdown breakdown = new PriceBreakdown();
+        int size = items.size();
+        for (int i = 0; i < size; i++) {
+            CartItem item = items.get(i);
+            addLine(breakdown, Money.toCents(item.getProduct().getPrice()), item.getQuantity());
+        }
+        return complete(breakdown);
+    }
+    
+    public PriceBreakdown priceOrder(List<OrderItem> items) {
+        PriceBreakdown breakdown = new PriceBreakdown();
+        int size = items.size();
+        for (int i = 0; i < size; i++) {
+            OrderItem item = items.get(i);
+            addLine(breakdown, Money.toCents(item.getPrice()), item.getQuantity());
+        }
+        return complete(breakdown);
+    }
+    
+    private void addLine(PriceBreakdown breakdown, long unitPriceCents, int quantity) {
+        breakdown.setLineCount(breakdown.getLineCount() + 1);
+        breakdown.setUnitCount(breakdown.getUnitCount() + quantity);
+        breakdown.setSubtotalCents(breakdown.getSubtotalCents() + unitPriceCents * quantity);
+        for (int r = 0; r < rules.size(); r++) {
+            rules.get(r).onLine(breakdown, unitPriceCents, quantity);
+        }
+    }
+    
+    private PriceBreakdown complete(PriceBreakdown breakdown) {
+        for (int r = 0; r < rules.size(); r++) {
+            rules.get(r).complete(breakdown);
+        }
+        return breakdown;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.ecommerce.pricing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Flat shipping charge, waived once the discounted subtotal reaches a threshold
+ */
+@Component
+@Order(300)
+public class ShippingRule implements PriceRule {
+    
+    private final long flatCents;
+    private final long freeOverCents;
+    
+    public ShippingRule(@Value("${pricing.shipping.flat:0}") double flat,
+                        @Value("${pricing.shipping.free-over:0}") double freeOver) {
+        this.flatCents = Money.toCents(flat);
+        this.freeOverCents = Money.toCents(freeOver);
+    }
+    
+    @Override
+    public void complete(PriceBreakdown breakdown) {
+        if (flatCents == 0 || breakdown.getLineCount() == 0) {
+            return;
+        }
+        long discounted = breakdown.getSubtotalCents() - breakdown.getDiscountCents();
+        if (freeOverCents > 0 && discounted >= freeOverCents) {
+            return;
+        }
+        breakdown.setShippingCents(breakdown.getShippingCents() + flatCents);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.ecommerce.pricing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Flat tax rate on the discounted subtotal
+ */
+@Component
+@Order(200)
+public class TaxRule implements PriceRule {
+    
+    private final long basisPoints;
+    
+    public TaxRule(@Value("${pricing.tax.rate-percent:0}") double ratePercent) {
+        this.basisPoints = Math.round(ratePercent * 100);
+    }
+    
+    @Override
+    public void complete(PriceBreakdown breakdown) {
+        if (basisPoints > 0) {
+            long taxable = breakdown.getSubtotalCents() - breakdown.getDiscountCents();
+            breakdown.setTaxCents(breakdown.getTaxCents() + Money.percentOf(taxable, basisPoints));
+        }
+    }
+}
\ No newline at end of file
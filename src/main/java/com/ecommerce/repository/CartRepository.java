@@ -1,12 +1,19 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.model.Cart;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
     Optional<Cart> findByUserId(Long userId);
+    
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    List<Cart> findByUserIdIn(Collection<Long> userIds);
 }
\ No newline at end of file
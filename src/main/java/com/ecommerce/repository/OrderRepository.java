@@ -1,13 +1,69 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.model.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
+    
+    // Unpaged reads fetch the whole aggregate in one joined select
+    @Override
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    Optional<Order> findById(Long id);
+    
+    @Override
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    List<Order> findAll();
+    
+    // Outbox dispatch hands these orders to the async email executor, so the lines must be loaded up front
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    List<Order> findAllById(Iterable<Long> ids);
+    
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
     List<Order> findByUserId(Long userId);
+    
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
     List<Order> findByStatus(Order.OrderStatus status);
+    
+    // Paged reads join only the user; items and products are loaded in batches
+    // (hibernate.default_batch_fetch_size) since a collection fetch would page in memory
+    @EntityGraph(attributePaths = {"user"})
+    Slice<Order> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"user"})
+    Slice<Order> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long id, Pageable pageable);
+    
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status AND o.paymentId IS NULL "
+            + "AND o.createdAt < :createdBefore ORDER BY o.id")
+    List<Long> findUnpaidOrderIds(@Param("status") Order.OrderStatus status,
+                                  @Param("createdBefore") LocalDateTime createdBefore,
+                                  Pageable pageable);
+    
+    @Query("SELECT i.product.id, SUM(i.quantity) FROM OrderItem i WHERE i.order.id IN :orderIds GROUP BY i.product.id")
+    List<Object[]> sumQuantitiesByProduct(@Param("orderIds") Collection<Long> orderIds);
+    
+    // Compare-and-set on the status; 0 rows updated means another writer got there first
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :to, o.updatedAt = LOCAL DATETIME WHERE o.id = :id AND o.status = :from")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") Order.OrderStatus from,
+                         @Param("to") Order.OrderStatus to);
+    
+    // Only a PENDING order can be paid; 0 rows means it was paid, cancelled or moved on already
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.paymentId = :paymentId, o.status = CONFIRMED, o.updatedAt = LOCAL DATETIME "
+            + "WHERE o.id = :id AND o.status = PENDING")
+    int confirmPayment(@Param("id") Long id, @Param("paymentId") String paymentId);
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.Order;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Order queries that can reach into the archive tables. A lookup only touches
+ * {@code orders_archive} when its date range extends past the archive cutoff, so
+ * queries over recent orders stay on the small hot tables.
+ */
+public interface OrderRepositoryCustom {
+    
+    Optional<Order> findArchivedById(Long id);
+    
+    /**
+     * Orders of the user created in [from, to), newest first; null bounds are open
+     */
+    List<Order> findByUserIdCreatedBetween(Long userId, LocalDateTime from, LocalDateTime to);
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Hot rows are read through JPA with one fetch-joined query; archived rows are
+ * read with plain JDBC and returned as detached entities.
+ */
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+    
+    private static final String ARCHIVE_SELECT =
+            "SELECT o.id, o.user_id, o.total_amount, o.status, o.shipping_address, o.payment_method, "
+            + "o.payment_id, o.created_at, o.updated_at FROM orders_archive o";
+    
+    private final EntityManager entityManager;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Duration archiveAfter;
+    private final int maxArchiveResults;
+    
+    public OrderRepositoryImpl(EntityManager entityManager,
+                               NamedParameterJdbcTemplate jdbcTemplate,
+                               @Value("${order.archive.after:180d}") Duration archiveAfter,
+                               @Value("${order.archive.max-query-results:1000}") int maxArchiveResults) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveAfter = archiveAfter;
+        this.maxArchiveResults = maxArchiveResults;
+    }
+    
+    @Override
+    public Optional<Order> findArchivedById(Long id) {
+        List<Order> orders = findArchived("o.id = :id", new MapSqlParameterSource("id", id));
+        return orders.isEmpty() ? Optional.empty() : Optional.of(orders.get(0));
+    }
+    
+    @Override
+    public List<Order> findByUserIdCreatedBetween(Long userId, LocalDateTime from, LocalDateTime to) {
+        StringBuilder jpql = new StringBuilder("SELECT DISTINCT o FROM Order o JOIN FETCH o.user "
+                + "LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product WHERE o.user.id = :userId");
+        StringBuilder sql = new StringBuilder("o.user_id = :userId");
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", userId);
+        if (from != null) {
+            jpql.append(" AND o.createdAt >= :from");
+            sql.append(" AND o.created_at >= :from");
+            params.addValue("from", Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            jpql.append(" AND o.createdAt < :to");
+            sql.append(" AND o.created_at < :to");
+            params.addValue("to", Timestamp.valueOf(to));
+        }
+        
+        TypedQuery<Order> query = entityManager.createQuery(jpql.toString(), Order.class)
+                .setParameter("userId", userId);
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        List<Order> orders = new ArrayList<>(query.getResultList());
+        
+        // The archive only holds orders older than the cutoff
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveAfter);
+        if (from == null || from.isBefore(cutoff)) {
+            orders.addAll(findArchived(sql.toString(), params));
+        }
+        orders.sort(Comparator.comparing(Order::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        return orders;
+    }
+    
+    private List<Order> findArchived(String condition, MapSqlParameterSource params) {
+        Map<Long, Long> userIds = new HashMap<>();
+        List<Order> orders = jdbcTemplate.query(
+                ARCHIVE_SELECT + " WHERE " + condition + " ORDER BY o.created_at DESC LIMIT " + maxArchiveResults,
+                params,
+                (rs, rowNum) -> {
+                    Order order = new Order();
+                    order.setId(rs.getLong("id"));
+                    order.setTotalAmount(rs.getDouble("total_amount"));
+                    order.setStatus(Order.OrderStatus.valueOf(rs.getString("status")));
+                    order.setShippingAddress(rs.getString("shipping_address"));
+                    order.setPaymentMethod(rs.getString("payment_method"));
+                    order.setPaymentId(rs.getString("payment_id"));
+                    order.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+                    order.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+                    userIds.put(order.getId(), rs.getLong("user_id"));
+                    return order;
+                });
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        
+        Map<Long, Order> byId = new HashMap<>();
+        for (Order order : orders) {
+            byId.put(order.getId(), order);
+        }
+        Map<Long, Long> productIds = new HashMap<>();
+        jdbcTemplate.query("SELECT id, order_id, product_id, quantity, price FROM order_items_archive "
+                        + "WHERE order_id IN (:orderIds) ORDER BY id",
+                new MapSqlParameterSource("orderIds", byId.keySet()),
+                rs -> {
+                    Order order = byId.get(rs.getLong("order_id"));
+                    OrderItem item = new OrderItem();
+                    item.setId(rs.getLong("id"));
+                    item.setOrder(order);
+                    item.setQuantity(rs.getInt("quantity"));
+                    item.setPrice(rs.getDouble("price"));
+                    productIds.put(item.getId(), rs.getLong("product_id"));
+                    order.getItems().add(item);
+                });
+        
+        Map<Long, User> users = loadById(User.class, userIds.values(), User::getId);
+        Map<Long, Product> products = loadById(Product.class, productIds.values(), Product::getId);
+        for (Order order : orders) {
+            order.setUser(users.get(userIds.get(order.getId())));
+            for (OrderItem item : order.getItems()) {
+                item.setProduct(products.get(productIds.get(item.getId())));
+            }
+        }
+        return orders;
+    }
+    
+    private <T> Map<Long, T> loadById(Class<T> type, Collection<Long> ids, Function<T, Long> idOf) {
+        Map<Long, T> loaded = new HashMap<>();
+        if (ids.isEmpty()) {
+            return loaded;
+        }
+        String jpql = "SELECT e FROM " + type.getSimpleName() + " e WHERE e.id IN :ids";
+        for (T entity : entityManager.createQuery(jpql, type).setParameter("ids", new HashSet<>(ids)).getResultList()) {
+            loaded.put(idOf.apply(entity), entity);
+        }
+        return loaded;
+    }
+    
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
\ No newline at end of file
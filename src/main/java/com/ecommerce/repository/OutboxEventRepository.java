@@ -0,0 +1,32 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    // SKIP LOCKED (lock timeout -2) lets several dispatchers drain the table without blocking each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.nextAttemptAt <= :now ORDER BY e.id")
+    List<OutboxEvent> lockDueEvents(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    long countByNextAttemptAtIsNotNull();
+    
+    long countByNextAttemptAtIsNull();
+    
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.nextAttemptAt IS NOT NULL")
+    LocalDateTime findOldestPendingCreatedAt();
+}
\ No newline at end of file
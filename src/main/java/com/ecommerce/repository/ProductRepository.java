@@ -1,7 +1,12 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.model.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +15,16 @@ import java.util.List;
 public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByCategory(String category);
     List<Product> findByNameContainingIgnoreCase(String name);
+    Slice<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // Single-statement conditional decrement; 0 rows updated means not enough stock
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.updatedAt = LOCAL DATETIME "
+            + "WHERE p.id = :id AND p.stockQuantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity, p.updatedAt = LOCAL DATETIME "
+            + "WHERE p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
 }
\ No newline at end of file
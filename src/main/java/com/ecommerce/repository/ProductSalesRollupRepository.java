@@ -0,0 +1,44 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.CategorySales;
+import com.ecommerce.dto.ProductSales;
+import com.ecommerce.model.ProductSalesRollup;
+import com.ecommerce.model.SalesRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductSalesRollupRepository extends JpaRepository<ProductSalesRollup, Long> {
+    
+    @Query("SELECT new com.ecommerce.dto.ProductSales(r.productId, MAX(r.category), SUM(r.units), SUM(r.revenueCents)) "
+            + "FROM ProductSalesRollup r WHERE r.granularity = :granularity "
+            + "AND r.periodStart >= :from AND r.periodStart < :to "
+            + "GROUP BY r.productId HAVING SUM(r.units) > 0 ORDER BY SUM(r.units) DESC, r.productId ASC")
+    List<ProductSales> findTopProductsByUnits(@Param("granularity") SalesRollup.Granularity granularity,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to,
+                                              Pageable pageable);
+    
+    @Query("SELECT new com.ecommerce.dto.ProductSales(r.productId, MAX(r.category), SUM(r.units), SUM(r.revenueCents)) "
+            + "FROM ProductSalesRollup r WHERE r.granularity = :granularity "
+            + "AND r.periodStart >= :from AND r.periodStart < :to "
+            + "GROUP BY r.productId HAVING SUM(r.units) > 0 ORDER BY SUM(r.revenueCents) DESC, r.productId ASC")
+    List<ProductSales> findTopProductsByRevenue(@Param("granularity") SalesRollup.Granularity granularity,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to,
+                                                Pageable pageable);
+    
+    @Query("SELECT new com.ecommerce.dto.CategorySales(r.category, SUM(r.units), SUM(r.revenueCents)) "
+            + "FROM ProductSalesRollup r WHERE r.granularity = :granularity "
+            + "AND r.periodStart >= :from AND r.periodStart < :to "
+            + "GROUP BY r.category HAVING SUM(r.units) > 0 ORDER BY SUM(r.revenueCents) DESC")
+    List<CategorySales> sumByCategory(@Param("granularity") SalesRollup.Granularity granularity,
+                                      @Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to);
+}
\ No newline at end of file
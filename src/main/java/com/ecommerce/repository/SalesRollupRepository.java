@@ -0,0 +1,15 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+    
+    List<SalesRollup> findByGranularityAndPeriodStartGreaterThanEqualAndPeriodStartLessThanOrderByPeriodStartAsc(
+            SalesRollup.Granularity granularity, LocalDateTime from, LocalDateTime to);
+}
\ No newline at end of file
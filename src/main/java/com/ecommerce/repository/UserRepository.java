@@ -1,6 +1,8 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,4 +12,5 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+    Slice<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
\ No newline at end of file
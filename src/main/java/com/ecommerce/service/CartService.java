@@ -4,6 +4,7 @@ import com.ecommerce.model.Cart;
 import com.ecommerce.model.CartItem;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.User;
+import com.ecommerce.pricing.PricingEngine;
 import com.ecommerce.repository.CartItemRepository;
 import com.ecommerce.repository.CartRepository;
 import lombok.RequiredArgsConstructor;
@@ -20,12 +21,26 @@ public class CartService {
     private final CartItemRepository cartItemRepository;
     private final UserService userService;
     private final ProductService productService;
+    private final Optional<WriteBehindCartStore> writeBehindStore;
+    private final PricingEngine pricingEngine;
     
     public Cart getCartByUserId(Long userId) {
+        if (writeBehindStore.isPresent()) {
+            return priced(writeBehindStore.get().getCart(userId));
+        }
+        return priced(loadCart(userId));
+    }
+    
+    private Cart loadCart(Long userId) {
         return cartRepository.findByUserId(userId)
                 .orElseGet(() -> createCartForUser(userId));
     }
     
+    private Cart priced(Cart cart) {
+        cart.setPricing(pricingEngine.priceCart(cart.getItems()));
+        return cart;
+    }
+    
     private Cart createCartForUser(Long userId) {
         User user = userService.getUserById(userId);
         Cart cart = new Cart();
@@ -35,7 +50,10 @@ public class CartService {
     
     @Transactional
     public Cart addItemToCart(Long userId, Long productId, Integer quantity) {
-        Cart cart = getCartByUserId(userId);
+        if (writeBehindStore.isPresent()) {
+            return priced(writeBehindStore.get().addItem(userId, productId, quantity));
+        }
+        Cart cart = loadCart(userId);
         Product product = productService.getProductById(productId);
         
         Optional<CartItem> existingItem = cartItemRepository
@@ -54,12 +72,15 @@ public class CartService {
             cartItemRepository.save(newItem);
         }
         
-        return cartRepository.save(cart);
+        return priced(cartRepository.save(cart));
     }
     
     @Transactional
     public Cart updateCartItem(Long userId, Long itemId, Integer quantity) {
-        Cart cart = getCartByUserId(userId);
+        if (writeBehindStore.isPresent()) {
+            return priced(writeBehindStore.get().updateItem(userId, itemId, quantity));
+        }
+        Cart cart = loadCart(userId);
         CartItem item = cartItemRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
         
@@ -71,24 +92,31 @@ public class CartService {
             cartItemRepository.save(item);
         }
         
-        return cartRepository.save(cart);
+        return priced(cartRepository.save(cart));
     }
     
     @Transactional
     public Cart removeItemFromCart(Long userId, Long itemId) {
-        Cart cart = getCartByUserId(userId);
+        if (writeBehindStore.isPresent()) {
+            return priced(writeBehindStore.get().removeItem(userId, itemId));
+        }
+        Cart cart = loadCart(userId);
         CartItem item = cartItemRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
         
         cart.getItems().remove(item);
         cartItemRepository.delete(item);
         
-        return cartRepository.save(cart);
+        return priced(cartRepository.save(cart));
     }
     
     @Transactional
     public void clearCart(Long userId) {
-        Cart cart = getCartByUserId(userId);
+        if (writeBehindStore.isPresent()) {
+            writeBehindStore.get().clear(userId);
+            return;
+        }
+        Cart cart = loadCart(userId);
         cart.getItems().clear();
         cartRepository.save(cart);
     }
@@ -0,0 +1,173 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Category to sorted product-id index. Readers get immutable id arrays without
+ * locking; writers copy only the arrays of the categories they touch.
+ * Categories are matched case-insensitively, like the MySQL column collation.
+ */
+@Component
+@Slf4j
+public class CategoryIndex implements ProductChangeListener {
+    
+    private static final long[] EMPTY = new long[0];
+    
+    private volatile Map<String, CategoryEntry> categories = Collections.emptyMap();
+    private final Map<Long, String> categoryKeyByProduct = new HashMap<>();
+    
+    @Override
+    public synchronized void rebuild(Collection<Product> products) {
+        Map<String, String> names = new HashMap<>();
+        Map<String, List<Long>> ids = new HashMap<>();
+        categoryKeyByProduct.clear();
+        for (Product product : products) {
+            String key = categoryKey(product.getCategory());
+            names.putIfAbsent(key, product.getCategory());
+            ids.computeIfAbsent(key, k -> new ArrayList<>()).add(product.getId());
+            categoryKeyByProduct.put(product.getId(), key);
+        }
+        
+        Map<String, CategoryEntry> rebuilt = new HashMap<>();
+        for (Map.Entry<String, List<Long>> entry : ids.entrySet()) {
+            long[] sorted = entry.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+            rebuilt.put(entry.getKey(), new CategoryEntry(names.get(entry.getKey()), sorted));
+        }
+        categories = rebuilt;
+        log.info("Category index built with {} categories", rebuilt.size());
+    }
+    
+    @Override
+    public synchronized void onProductSaved(Product product) {
+        String newKey = categoryKey(product.getCategory());
+        String oldKey = categoryKeyByProduct.put(product.getId(), newKey);
+        if (newKey.equals(oldKey)) {
+            return;
+        }
+        
+        Map<String, CategoryEntry> updated = new HashMap<>(categories);
+        if (oldKey != null) {
+            removeId(updated, oldKey, product.getId());
+        }
+        CategoryEntry current = updated.get(newKey);
+        if (current == null) {
+            updated.put(newKey, new CategoryEntry(product.getCategory(), new long[] { product.getId() }));
+        } else {
+            updated.put(newKey, new CategoryEntry(current.name, insert(current.productIds, product.getId())));
+        }
+        categories = updated;
+    }
+    
+    @Override
+    public synchronized void onProductDeleted(Long productId) {
+        String oldKey = categoryKeyByProduct.remove(productId);
+        if (oldKey == null) {
+            return;
+        }
+        Map<String, CategoryEntry> updated = new HashMap<>(categories);
+        removeId(updated, oldKey, productId);
+        categories = updated;
+    }
+    
+    /**
+     * Product ids of a category in ascending order
+     */
+    public long[] getProductIds(String category) {
+        CategoryEntry entry = categories.get(categoryKey(category));
+        return entry == null ? EMPTY : entry.productIds;
+    }
+    
+    public int count(String category) {
+        return getProductIds(category).length;
+    }
+    
+    /**
+     * Product counts of every category, largest first
+     */
+    public Map<String, Integer> getCategoryCounts() {
+        List<CategoryEntry> entries = new ArrayList<>(categories.values());
+        entries.sort(Comparator.comparingInt((CategoryEntry e) -> e.productIds.length).reversed()
+                .thenComparing(e -> e.name));
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (CategoryEntry entry : entries) {
+            counts.put(entry.name, entry.productIds.length);
+        }
+        return counts;
+    }
+    
+    /**
+     * Category counts over a subset of products, e.g. a search result, largest first
+     */
+    public Map<String, Integer> getCategoryCounts(Collection<Product> products) {
+        Map<String, CategoryEntry> snapshot = categories;
+        Map<String, Integer> countsByKey = new HashMap<>();
+        for (Product product : products) {
+            countsByKey.merge(categoryKey(product.getCategory()), 1, Integer::sum);
+        }
+        
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<>(countsByKey.entrySet());
+        sorted.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : sorted) {
+            CategoryEntry category = snapshot.get(entry.getKey());
+            counts.put(category != null ? category.name : entry.getKey(), entry.getValue());
+        }
+        return counts;
+    }
+    
+    private static void removeId(Map<String, CategoryEntry> categories, String key, long productId) {
+        CategoryEntry entry = categories.get(key);
+        if (entry == null) {
+            return;
+        }
+        long[] remaining = remove(entry.productIds, productId);
+        if (remaining.length == 0) {
+            categories.remove(key);
+        } else {
+            categories.put(key, new CategoryEntry(entry.name, remaining));
+        }
+    }
+    
+    private static long[] insert(long[] sorted, long id) {
+        int pos = Arrays.binarySearch(sorted, id);
+        if (pos >= 0) {
+            return sorted;
+        }
+        int insertAt = -pos - 1;
+        long[] result = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, result, 0, insertAt);
+        result[insertAt] = id;
+        System.arraycopy(sorted, insertAt, result, insertAt + 1, sorted.length - insertAt);
+        return result;
+    }
+    
+    private static long[] remove(long[] sorted, long id) {
+        int pos = Arrays.binarySearch(sorted, id);
+        if (pos < 0) {
+            return sorted;
+        }
+        long[] result = new long[sorted.length - 1];
+        System.arraycopy(sorted, 0, result, 0, pos);
+        System.arraycopy(sorted, pos + 1, result, pos, sorted.length - pos - 1);
+        return result;
+    }
+    
+    static String categoryKey(String category) {
+        return category == null ? "" : category.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static final class CategoryEntry {
+        private final String name;
+        private final long[] productIds;
+        
+        private CategoryEntry(String name, long[] productIds) {
+            this.name = name;
+            this.productIds = productIds;
+        }
+    }
+}
\ No newline at end of file
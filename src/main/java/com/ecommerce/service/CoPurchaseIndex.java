@@ -0,0 +1,165 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.OrderCancelledEvent;
+import com.ecommerce.event.OrderCreatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sparse product-pair co-occurrence counts ("bought in the same order") with a
+ * precomputed top-N neighbour list per product. New orders update the counts of
+ * the pairs they contain and cancelled ones take them back; the full history,
+ * archived orders included, is replayed in parallel at startup.
+ */
+@Component
+@Slf4j
+public class CoPurchaseIndex {
+    
+    private static final long[] EMPTY = new long[0];
+    private static final int REBUILD_CHUNK_ORDERS = 10_000;
+    
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<Long, LongAdder>> pairCounts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, long[]> topNeighbors = new ConcurrentHashMap<>();
+    
+    private final JdbcTemplate historyJdbcTemplate;
+    private final int topN;
+    
+    public CoPurchaseIndex(DataSource dataSource,
+                           @Value("${recommendation.bought-together.top-n:20}") int topN,
+                           @Value("${recommendation.bought-together.fetch-size:1000}") int fetchSize) {
+        this.historyJdbcTemplate = new JdbcTemplate(dataSource);
+        this.historyJdbcTemplate.setFetchSize(fetchSize);
+        this.topN = topN;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        List<long[]> chunk = new ArrayList<>(REBUILD_CHUNK_ORDERS);
+        List<Long> basket = new ArrayList<>();
+        long[] currentOrder = {-1};
+        long[] orders = {0};
+        
+        // Rows arrive grouped by order; baskets are counted in parallel chunk by chunk
+        historyJdbcTemplate.query(
+                "SELECT oi.order_id, oi.product_id FROM order_items oi "
+                + "JOIN orders o ON o.id = oi.order_id WHERE o.status <> 'CANCELLED' "
+                + "UNION ALL SELECT oi.order_id, oi.product_id FROM order_items_archive oi "
+                + "JOIN orders_archive o ON o.id = oi.order_id WHERE o.status <> 'CANCELLED' "
+                + "ORDER BY 1",
+                rs -> {
+                    long orderId = rs.getLong(1);
+                    if (orderId != currentOrder[0] && !basket.isEmpty()) {
+                        chunk.add(distinct(basket));
+                        basket.clear();
+                        orders[0]++;
+                        if (chunk.size() >= REBUILD_CHUNK_ORDERS) {
+                            chunk.parallelStream().forEach(this::countPairs);
+                            chunk.clear();
+                        }
+                    }
+                    currentOrder[0] = orderId;
+                    basket.add(rs.getLong(2));
+                });
+        if (!basket.isEmpty()) {
+            chunk.add(distinct(basket));
+            orders[0]++;
+        }
+        chunk.parallelStream().forEach(this::countPairs);
+        
+        pairCounts.forEachKey(1, this::refreshNeighbors);
+        log.info("Co-purchase index built from {} orders covering {} products in {} ms",
+                orders[0], pairCounts.size(), System.currentTimeMillis() - started);
+    }
+    
+    @TransactionalEventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        update(event.getLines(), 1);
+    }
+    
+    /**
+     * Take a cancelled or deleted order back out, as the startup rebuild would not
+     * count it
+     */
+    @TransactionalEventListener
+    public void onOrderCancelled(OrderCancelledEvent event) {
+        update(event.getLines(), -1);
+    }
+    
+    /**
+     * Products most often bought together with the given one, strongest first
+     */
+    public long[] getTopNeighbors(Long productId, int limit) {
+        long[] neighbors = topNeighbors.getOrDefault(productId, EMPTY);
+        return neighbors.length <= limit ? neighbors : Arrays.copyOf(neighbors, limit);
+    }
+    
+    private void update(List<OrderCreatedEvent.Line> lines, int delta) {
+        List<Long> productIds = new ArrayList<>(lines.size());
+        for (OrderCreatedEvent.Line line : lines) {
+            productIds.add(line.getProductId());
+        }
+        long[] basket = distinct(productIds);
+        if (basket.length < 2) {
+            return;
+        }
+        countPairs(basket, delta);
+        for (long productId : basket) {
+            refreshNeighbors(productId);
+        }
+    }
+    
+    private void countPairs(long[] basket) {
+        countPairs(basket, 1);
+    }
+    
+    private void countPairs(long[] basket, int delta) {
+        for (long a : basket) {
+            ConcurrentHashMap<Long, LongAdder> row = pairCounts.computeIfAbsent(a, id -> new ConcurrentHashMap<>());
+            for (long b : basket) {
+                if (a != b) {
+                    row.computeIfAbsent(b, id -> new LongAdder()).add(delta);
+                }
+            }
+        }
+    }
+    
+    private void refreshNeighbors(Long productId) {
+        ConcurrentHashMap<Long, LongAdder> row = pairCounts.get(productId);
+        if (row == null) {
+            return;
+        }
+        PriorityQueue<long[]> heap = new PriorityQueue<>(topN + 1,
+                Comparator.<long[]>comparingLong(e -> e[1]).thenComparingLong(e -> -e[0]));
+        row.forEach((neighborId, count) -> {
+            long together = count.sum();
+            // Only ever bought together in orders that were cancelled since
+            if (together <= 0) {
+                return;
+            }
+            heap.offer(new long[] { neighborId, together });
+            if (heap.size() > topN) {
+                heap.poll();
+            }
+        });
+        long[] neighbors = new long[heap.size()];
+        for (int i = neighbors.length - 1; i >= 0; i--) {
+            neighbors[i] = heap.poll()[0];
+        }
+        topNeighbors.put(productId, neighbors);
+    }
+    
+    private static long[] distinct(List<Long> productIds) {
+        return productIds.stream().mapToLong(Long::longValue).distinct().toArray();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.ecommerce.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 reading and writing: quoted fields, doubled quotes and
+ * line breaks inside quotes.
+ */
+final class Csv {
+    
+    private Csv() {
+    }
+    
+    /**
+     * Reads records one at a time and keeps track of the physical line each
+     * record starts on, which differs from the record count once a quoted field
+     * spans lines
+     */
+    static final class RecordReader {
+        private final BufferedReader reader;
+        private long line = 1;
+        private long recordLine;
+        
+        RecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+        
+        /**
+         * 1-based line on which the record last returned by {@link #next()} starts
+         */
+        long recordLine() {
+            return recordLine;
+        }
+        
+        /**
+         * Read the next record, or null at end of input
+         */
+        List<String> next() throws IOException {
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean readAny = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                readAny = true;
+                if (c == '\n') {
+                    line++;
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (next != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!readAny) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+    
+    static void appendField(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+}
\ No newline at end of file
@@ -1,131 +1,86 @@
 package com.ecommerce.service;
 
+import com.ecommerce.config.AsyncConfig;
 import com.ecommerce.model.Order;
 import com.ecommerce.model.User;
+import com.ecommerce.template.RenderedEmail;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
-import lombok.RequiredArgsConstructor;
+import com.ecommerce.config.NotificationExecutor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+/**
+ * Emails are rendered and journaled on the caller's thread and only then handed
+ * to the email executor, so one that is still queued at a crash, or that the
+ * executor turns away, stays open in the journal for {@link NotificationRetrier}.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class EmailService {
     
     private final JavaMailSender mailSender;
+    private final EmailTemplates emailTemplates;
+    private final NotificationJournal journal;
+    private final NotificationExecutor emailExecutor;
+    
+    public EmailService(JavaMailSender mailSender, EmailTemplates emailTemplates, NotificationJournal journal,
+                        @Qualifier(AsyncConfig.EMAIL_EXECUTOR) NotificationExecutor emailExecutor) {
+        this.mailSender = mailSender;
+        this.emailTemplates = emailTemplates;
+        this.journal = journal;
+        this.emailExecutor = emailExecutor;
+    }
     
-    @Async
     public void sendOrderConfirmationEmail(User user, Order order) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setTo(user.getEmail());
-            helper.setSubject("Order Confirmation - Order #" + order.getId());
-            
-            String emailContent = buildOrderConfirmationEmail(user, order);
-            helper.setText(emailContent, true);
-            
-            mailSender.send(message);
-            log.info("Order confirmation email sent to: {}", user.getEmail());
-        } catch (MessagingException e) {
-            log.error("Failed to send order confirmation email", e);
-        }
+        send(user.getEmail(), emailTemplates.orderConfirmation(user, order));
+    }
+    
+    public void sendOrderStatusUpdateEmail(User user, Order order, Order.OrderStatus status) {
+        send(user.getEmail(), emailTemplates.orderStatusUpdate(user, order, status));
+    }
+    
+    public void sendWelcomeEmail(User user) {
+        send(user.getEmail(), emailTemplates.welcome(user));
+    }
+    
+    /**
+     * Another attempt at a journaled email, from {@link NotificationRetrier};
+     * throws {@link TaskRejectedException} when the executor is full
+     */
+    public void redeliver(NotificationJournal.Entry entry) {
+        emailExecutor.execute(() -> deliver(entry));
     }
     
-    @Async
-    public void sendOrderStatusUpdateEmail(User user, Order order) {
+    private void send(String to, RenderedEmail email) {
+        NotificationJournal.Entry entry = journal.append(NotificationJournal.Channel.EMAIL, to, email.getSubject(),
+                email.getHtml());
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setTo(user.getEmail());
-            helper.setSubject("Order Status Update - Order #" + order.getId());
-            
-            String emailContent = buildOrderStatusUpdateEmail(user, order);
-            helper.setText(emailContent, true);
-            
-            mailSender.send(message);
-            log.info("Order status update email sent to: {}", user.getEmail());
-        } catch (MessagingException e) {
-            log.error("Failed to send order status update email", e);
+            emailExecutor.execute(() -> deliver(entry));
+        } catch (TaskRejectedException e) {
+            log.warn("Email executor is full, email {} to {} waits for a retry", entry.getId(), to);
+            journal.unclaim(entry);
         }
     }
     
-    @Async
-    public void sendWelcomeEmail(User user) {
+    private void deliver(NotificationJournal.Entry entry) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setTo(user.getEmail());
-            helper.setSubject("Welcome to E-Shop!");
-            
-            String emailContent = buildWelcomeEmail(user);
-            helper.setText(emailContent, true);
+            helper.setTo(entry.getRecipient());
+            helper.setSubject(entry.getSubject());
+            helper.setText(entry.getBody(), true);
             
             mailSender.send(message);
-            log.info("Welcome email sent to: {}", user.getEmail());
-        } catch (MessagingException e) {
-            log.error("Failed to send welcome email", e);
+            journal.delivered(entry);
+            log.info("Email \"{}\" sent to: {}", entry.getSubject(), entry.getRecipient());
+        } catch (MessagingException | RuntimeException e) {
+            // Anything else would leave the entry in flight, and never retried, until a restart
+            journal.failed(entry, e);
         }
     }
-    
-    private String buildOrderConfirmationEmail(User user, Order order) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("<html><body style='font-family: Arial, sans-serif;'>");
-        sb.append("<div style='max-width: 600px; margin: 0 auto; padding: 20px;'>");
-        sb.append("<h2 style='color: #2c3e50;'>Order Confirmation</h2>");
-        sb.append("<p>Dear ").append(user.getName()).append(",</p>");
-        sb.append("<p>Thank you for your order! Your order has been confirmed.</p>");
-        sb.append("<div style='background-color: #f8f9fa; padding: 15px; border-radius: 5px; margin: 20px 0;'>");
-        sb.append("<h3 style='color: #2c3e50;'>Order Details</h3>");
-        sb.append("<p><strong>Order ID:</strong> #").append(order.getId()).append("</p>");
-        sb.append("<p><strong>Order Date:</strong> ").append(order.getCreatedAt()).append("</p>");
-        sb.append("<p><strong>Total Amount:</strong> $").append(String.format("%.2f", order.getTotalAmount())).append("</p>");
-        sb.append("<p><strong>Status:</strong> ").append(order.getStatus()).append("</p>");
-        sb.append("</div>");
-        sb.append("<p><strong>Shipping Address:</strong><br>").append(order.getShippingAddress()).append("</p>");
-        sb.append("<p>We'll send you another email when your order ships.</p>");
-        sb.append("<p>Best regards,<br>E-Shop Team</p>");
-        sb.append("</div></body></html>");
-        return sb.toString();
-    }
-    
-    private String buildOrderStatusUpdateEmail(User user, Order order) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("<html><body style='font-family: Arial, sans-serif;'>");
-        sb.append("<div style='max-width: 600px; margin: 0 auto; padding: 20px;'>");
-        sb.append("<h2 style='color: #2c3e50;'>Order Status Update</h2>");
-        sb.append("<p>Dear ").append(user.getName()).append(",</p>");
-        sb.append("<p>Your order status has been updated.</p>");
-        sb.append("<div style='background-color: #f8f9fa; padding: 15px; border-radius: 5px; margin: 20px 0;'>");
-        sb.append("<p><strong>Order ID:</strong> #").append(order.getId()).append("</p>");
-        sb.append("<p><strong>New Status:</strong> <span style='color: #28a745; font-weight: bold;'>").append(order.getStatus()).append("</span></p>");
-        sb.append("</div>");
-        sb.append("<p>Thank you for shopping with us!</p>");
-        sb.append("<p>Best regards,<br>E-Shop Team</p>");
-        sb.append("</div></body></html>");
-        return sb.toString();
-    }
-    
-    private String buildWelcomeEmail(User user) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("<html><body style='font-family: Arial, sans-serif;'>");
-        sb.append("<div style='max-width: 600px; margin: 0 auto; padding: 20px;'>");
-        sb.append("<h2 style='color: #2c3e50;'>Welcome to E-Shop!</h2>");
-        sb.append("<p>Dear ").append(user.getName()).append(",</p>");
-        sb.append("<p>Thank you for joining E-Shop! We're excited to have you as part of our community.</p>");
-        sb.append("<p>Start exploring our amazing products and enjoy exclusive deals!</p>");
-        sb.append("<div style='text-align: center; margin: 30px 0;'>");
-        sb.append("<a href='http://localhost:3000/products' style='background-color: #007bff; color: white; padding: 12px 30px; text-decoration: none; border-radius: 5px; display: inline-block;'>Start Shopping</a>");
-        sb.append("</div>");
-        sb.append("<p>Best regards,<br>E-Shop Team</p>");
-        sb.append("</div></body></html>");
-        return sb.toString();
-    }
 }
\ No newline at end of file
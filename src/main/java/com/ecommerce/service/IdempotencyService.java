@@ -0,0 +1,185 @@
+package com.ecommerce.service;
+
+import com.ecommerce.cache.LruCache;
+import com.ecommerce.metrics.MetricsSource;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key}. The first request
+ * with a key executes and its response is kept for the TTL; repeats, including
+ * ones that arrive while the first is still running, wait for and receive that
+ * same response. Failed executions are forgotten so the client can retry.
+ * <p>
+ * Only a SHA-256 fingerprint of the request is kept, never the request itself
+ * (payment requests carry card data). Running executions are held outside the
+ * LRU so eviction cannot drop them while repeats still need to join them.
+ */
+@Service
+public class IdempotencyService implements MetricsSource {
+    
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    
+    private final LruCache<String, Execution> executions;
+    private final Map<String, Execution> inFlight = new ConcurrentHashMap<>();
+    private final ObjectMapper canonicalMapper;
+    
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    
+    public IdempotencyService(@Value("${idempotency.max-keys:10000}") int maxKeys,
+                              @Value("${idempotency.ttl:24h}") Duration ttl,
+                              ObjectMapper objectMapper) {
+        this.executions = new LruCache<>("idempotencyKeys", maxKeys, ttl);
+        ObjectMapper canonical = objectMapper.copy();
+        canonical.setConfig(canonical.getSerializationConfig()
+                .with(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS));
+        this.canonicalMapper = canonical;
+    }
+    
+    /**
+     * @param scope   endpoint the key belongs to, so keys of different endpoints never collide
+     * @param key     client-supplied key; without one the action simply runs
+     * @param request request body, compared on repeats to reject a key reused for a different request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String scope, String key, Object request, Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String cacheKey = scope + ':' + key;
+        Execution execution = new Execution(fingerprint(request));
+        Execution existing = inFlight.putIfAbsent(cacheKey, execution);
+        if (existing == null) {
+            // A finished execution moves to the LRU before it leaves inFlight
+            existing = executions.get(cacheKey);
+            if (existing != null) {
+                // Repeats may have joined this execution since it was published
+                follow(execution, existing);
+                inFlight.remove(cacheKey, execution);
+            }
+        }
+        if (existing != null) {
+            if (!existing.fingerprint.equals(execution.fingerprint)) {
+                throw conflict();
+            }
+            replayed.increment();
+            return (ResponseEntity<T>) replay(existing);
+        }
+        
+        try {
+            ResponseEntity<T> response = action.get();
+            executions.put(cacheKey, execution);
+            execution.response.complete(response);
+            executed.increment();
+            return response;
+        } catch (Throwable failure) {
+            // Errors too, so requests waiting on this one never hang
+            execution.response.completeExceptionally(failure);
+            throw failure;
+        } finally {
+            inFlight.remove(cacheKey, execution);
+        }
+    }
+    
+    /**
+     * Complete a withdrawn execution with the outcome of the finished one, or as
+     * a conflict if that was a different request
+     */
+    private void follow(Execution withdrawn, Execution finished) {
+        if (!finished.fingerprint.equals(withdrawn.fingerprint)) {
+            withdrawn.response.completeExceptionally(conflict());
+            return;
+        }
+        finished.response.whenComplete((response, failure) -> {
+            if (failure != null) {
+                withdrawn.response.completeExceptionally(failure);
+            } else {
+                withdrawn.response.complete(response);
+            }
+        });
+    }
+    
+    private ResponseStatusException conflict() {
+        conflicts.increment();
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                HEADER + " was already used for a different request");
+    }
+    
+    /**
+     * SHA-256 of the request serialized with sorted properties, so equal
+     * requests give equal fingerprints whatever their field order
+     */
+    private String fingerprint(Object request) {
+        try {
+            byte[] canonical = canonicalMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+    
+    private static ResponseEntity<?> replay(Execution execution) {
+        ResponseEntity<?> original;
+        try {
+            original = execution.response.join();
+        } catch (CompletionException e) {
+            // The first request failed while this one waited on it
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(original.getHeaders());
+        headers.set(REPLAYED_HEADER, "true");
+        return new ResponseEntity<>(original.getBody(), headers, original.getStatusCode());
+    }
+    
+    @Override
+    public String getMetricsName() {
+        return "idempotency";
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(executions.getMetrics());
+        metrics.put("inFlight", inFlight.size());
+        metrics.put("executed", executed.sum());
+        metrics.put("replayed", replayed.sum());
+        metrics.put("conflicts", conflicts.sum());
+        return metrics;
+    }
+    
+    private static final class Execution {
+        private final String fingerprint;
+        private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+        
+        private Execution(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
\ No newline at end of file
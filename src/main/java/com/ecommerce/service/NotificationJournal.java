@@ -0,0 +1,567 @@
+package com.ecommerce.service;
+
+import com.ecommerce.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of outgoing notifications, so a failed or interrupted send
+ * is retried instead of lost. Every notification is journaled before the first
+ * attempt and marked done after delivery; a failed attempt records when to try
+ * again. One writer thread appends whatever has queued up and syncs once per
+ * batch (group commit), so concurrent senders share a single fsync.
+ * <p>
+ * Records are framed as {@code [length][crc32][payload]}. Replay at startup
+ * stops at the first torn or corrupt record and truncates the file there. The
+ * file is rewritten with only the open entries once it outgrows
+ * {@code notification.journal.compact-threshold}.
+ * <p>
+ * An entry handed to a sender is in flight until the attempt reports back. One
+ * that never does, such as a task an executor discarded, is due again after
+ * {@code notification.retry.claim-timeout}.
+ */
+@Component
+@Slf4j
+public class NotificationJournal implements MetricsSource {
+    
+    public enum Channel {
+        EMAIL, SMS
+    }
+    
+    private static final byte ENQUEUE = 1;
+    private static final byte RETRY = 2;
+    private static final byte DONE = 3;
+    private static final byte DEAD = 4;
+    private static final int MAX_ERROR_LENGTH = 500;
+    
+    private final ConcurrentHashMap<Long, Entry> open = new ConcurrentHashMap<>();
+    private final BlockingQueue<PendingWrite> writes = new LinkedBlockingQueue<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    
+    private final Path path;
+    private final boolean fsync;
+    private final int maxBatch;
+    private final long compactThreshold;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final long claimTimeoutMillis;
+    
+    private FileChannel channel;
+    private Thread writer;
+    private volatile boolean running;
+    
+    private final LongAdder records = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder reclaimed = new LongAdder();
+    private volatile int replayedEntries;
+    
+    public NotificationJournal(@Value("${notification.journal.path:data/notification-journal.log}") String path,
+                               @Value("${notification.journal.fsync:true}") boolean fsync,
+                               @Value("${notification.journal.max-batch:1000}") int maxBatch,
+                               @Value("${notification.journal.compact-threshold:16MB}") DataSize compactThreshold,
+                               @Value("${notification.retry.max-attempts:8}") int maxAttempts,
+                               @Value("${notification.retry.initial-backoff:5s}") Duration initialBackoff,
+                               @Value("${notification.retry.max-backoff:30m}") Duration maxBackoff,
+                               @Value("${notification.retry.claim-timeout:10m}") Duration claimTimeout) {
+        this.path = Path.of(path);
+        this.fsync = fsync;
+        this.maxBatch = maxBatch;
+        this.compactThreshold = compactThreshold.toBytes();
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.claimTimeoutMillis = claimTimeout.toMillis();
+    }
+    
+    @PostConstruct
+    public void open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        long validLength = replay();
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() > validLength) {
+            log.warn("Truncating {} torn bytes at the end of {}", channel.size() - validLength, path);
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+        replayedEntries = open.size();
+        if (!open.isEmpty()) {
+            log.info("Replayed {} undelivered notifications from {}", open.size(), path);
+        }
+        
+        running = true;
+        writer = new Thread(this::writeLoop, "notification-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        // The writer drains what is already queued before it exits
+        running = false;
+        writer.join(10_000);
+        channel.close();
+    }
+    
+    /**
+     * Journal a new notification and wait until the record is durable. The entry
+     * is first due for retry after the initial backoff, which only matters if the
+     * first attempt never reports back (e.g. the process dies).
+     */
+    public Entry append(Channel channel, String recipient, String subject, String body) {
+        return append(channel, recipient, subject, body, null, null);
+    }
+    
+    /**
+     * As above, also keeping how the sender queued it so a retry is queued the
+     * same way
+     */
+    public Entry append(Channel channel, String recipient, String subject, String body, String priority,
+                        String coalescingKey) {
+        Entry entry = new Entry(nextId.getAndIncrement(), channel, recipient, subject, body, priority, coalescingKey);
+        entry.nextAttemptAt = System.currentTimeMillis() + initialBackoff.toMillis();
+        entry.claimedAt = System.currentTimeMillis();
+        entry.inFlight = true;
+        open.put(entry.id, entry);
+        try {
+            write(encode(ENQUEUE, entry)).join();
+        } catch (CompletionException e) {
+            log.warn("Notification {} to {} is not journaled, delivering anyway", entry.id, recipient);
+        }
+        return entry;
+    }
+    
+    public void delivered(Entry entry) {
+        if (open.remove(entry.id) != null) {
+            delivered.increment();
+            write(encode(DONE, entry));
+        }
+    }
+    
+    /**
+     * Close an entry that will not be sent because a newer message replaced it
+     */
+    public void discard(Entry entry) {
+        if (open.remove(entry.id) != null) {
+            discarded.increment();
+            write(encode(DONE, entry));
+        }
+    }
+    
+    /**
+     * Record a failed attempt: schedule the next one with exponential backoff and
+     * jitter, or give up after {@code notification.retry.max-attempts}
+     */
+    public void failed(Entry entry, Exception error) {
+        failedAttempts.increment();
+        entry.attempts++;
+        entry.lastError = truncate(String.valueOf(error.getMessage()));
+        if (entry.attempts >= maxAttempts) {
+            if (open.remove(entry.id) != null) {
+                dead.increment();
+                write(encode(DEAD, entry));
+                log.error("Giving up on {} notification {} to {} after {} attempts: {}",
+                        entry.channel, entry.id, entry.recipient, entry.attempts, entry.lastError);
+            }
+            return;
+        }
+        entry.nextAttemptAt = System.currentTimeMillis() + backoffMillis(entry.attempts);
+        write(encode(RETRY, entry));
+        entry.inFlight = false;
+        log.warn("{} notification {} to {} failed (attempt {}), retrying in {} ms: {}", entry.channel, entry.id,
+                entry.recipient, entry.attempts, entry.nextAttemptAt - System.currentTimeMillis(), entry.lastError);
+    }
+    
+    /**
+     * Open entries due for another attempt, marked in flight; includes entries in
+     * flight for longer than the claim timeout
+     */
+    public List<Entry> claimDue(int limit) {
+        long now = System.currentTimeMillis();
+        List<Entry> claimed = new ArrayList<>();
+        for (Entry entry : open.values()) {
+            if (claimed.size() >= limit) {
+                break;
+            }
+            synchronized (entry) {
+                boolean due = entry.inFlight ? now - entry.claimedAt >= claimTimeoutMillis : entry.nextAttemptAt <= now;
+                if (due) {
+                    if (entry.inFlight) {
+                        reclaimed.increment();
+                        log.warn("{} notification {} to {} never reported back, claiming it again",
+                                entry.channel, entry.id, entry.recipient);
+                    }
+                    entry.inFlight = true;
+                    entry.claimedAt = now;
+                    claimed.add(entry);
+                }
+            }
+        }
+        return claimed;
+    }
+    
+    /**
+     * Give back a claimed entry that could not be handed to a sender
+     */
+    public void unclaim(Entry entry) {
+        entry.inFlight = false;
+    }
+    
+    /**
+     * {@code initial * 2^(attempts-1)} capped at the maximum, then scaled by a
+     * random factor in [0.5, 1) so retries of a burst of failures spread out
+     */
+    private long backoffMillis(int attempts) {
+        int shift = Math.min(attempts - 1, 30);
+        long backoff = Math.min(initialBackoff.toMillis() << shift, maxBackoff.toMillis());
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+    
+    private CompletableFuture<Void> write(byte[] record) {
+        PendingWrite pending = new PendingWrite(record);
+        if (!running) {
+            pending.done.completeExceptionally(new IllegalStateException("Notification journal is closed"));
+            return pending.done;
+        }
+        writes.add(pending);
+        return pending.done;
+    }
+    
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatch);
+        while (running || !writes.isEmpty()) {
+            try {
+                PendingWrite first = writes.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                writes.drainTo(batch, maxBatch - 1);
+                commit(batch);
+                for (PendingWrite pending : batch) {
+                    pending.done.complete(null);
+                }
+                if (channel.size() > compactThreshold) {
+                    compact();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to write notification journal {}", path, e);
+                for (PendingWrite pending : batch) {
+                    pending.done.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void commit(List<PendingWrite> batch) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        long size = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(batch.get(i).record);
+            size += buffers[i].remaining();
+        }
+        long written = 0;
+        while (written < size) {
+            written += channel.write(buffers);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        records.add(buffers.length);
+        commits.increment();
+        bytesWritten.add(size);
+    }
+    
+    /**
+     * Rewrite the journal with only the open entries. Runs on the writer thread,
+     * so no append interleaves with the swap.
+     * <p>
+     * An entry appended while this runs is already in {@code open} but its
+     * ENQUEUE record may still be queued, so the compacted file can hold that
+     * ENQUEUE twice. Replay tolerates it: a repeated ENQUEUE replaces the entry
+     * with the same content, and DONE/RETRY for a closed id are ignored.
+     */
+    private void compact() throws IOException {
+        long before = channel.size();
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Entry entry : open.values()) {
+                ByteBuffer buffer = ByteBuffer.wrap(encode(ENQUEUE, entry));
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        compactions.increment();
+        log.info("Compacted notification journal from {} to {} bytes ({} open entries)", before, channel.size(), open.size());
+    }
+    
+    /**
+     * Rebuild the open entries from the file; returns the length of the valid prefix
+     */
+    private long replay() throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        long valid = 0;
+        long maxId = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > 16 * 1024 * 1024) {
+                    break;
+                }
+                long crc = in.readInt() & 0xFFFFFFFFL;
+                byte[] payload = new byte[length];
+                try {
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 checksum = new CRC32();
+                checksum.update(payload);
+                if (checksum.getValue() != crc) {
+                    break;
+                }
+                maxId = Math.max(maxId, apply(payload));
+                valid += 8 + length;
+            }
+        } catch (EOFException e) {
+            // Torn length or checksum: keep the valid prefix
+        }
+        nextId.set(maxId + 1);
+        return valid;
+    }
+    
+    private long apply(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        long id = in.readLong();
+        int attempts = in.readInt();
+        long nextAttemptAt = in.readLong();
+        switch (type) {
+            case ENQUEUE -> {
+                Channel channel = Channel.values()[in.readByte()];
+                String recipient = readString(in);
+                String subject = readString(in);
+                String body = readString(in);
+                // Records written before priority and coalescing key were journaled end here
+                boolean queueing = in.available() > 0;
+                Entry entry = new Entry(id, channel, recipient, subject, body,
+                        queueing ? readString(in) : null, queueing ? readString(in) : null);
+                entry.attempts = attempts;
+                entry.nextAttemptAt = nextAttemptAt;
+                open.put(id, entry);
+            }
+            case RETRY -> {
+                Entry entry = open.get(id);
+                if (entry != null) {
+                    entry.attempts = attempts;
+                    entry.nextAttemptAt = nextAttemptAt;
+                }
+            }
+            case DONE, DEAD -> open.remove(id);
+            default -> throw new IOException("Unknown journal record type " + type);
+        }
+        return id;
+    }
+    
+    private static byte[] encode(byte type, Entry entry) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(type == ENQUEUE ? 256 + length(entry.body) : 32);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeByte(type);
+            out.writeLong(entry.id);
+            out.writeInt(entry.attempts);
+            out.writeLong(entry.nextAttemptAt);
+            if (type == ENQUEUE) {
+                out.writeByte(entry.channel.ordinal());
+                writeString(out, entry.recipient);
+                writeString(out, entry.subject);
+                writeString(out, entry.body);
+                writeString(out, entry.priority);
+                writeString(out, entry.coalescingKey);
+            }
+            byte[] record = bytes.toByteArray();
+            CRC32 checksum = new CRC32();
+            checksum.update(record, 8, record.length - 8);
+            ByteBuffer.wrap(record).putInt(record.length - 8).putInt((int) checksum.getValue());
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+    
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+    
+    @Override
+    public String getMetricsName() {
+        return "notificationJournal";
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        long commitCount = commits.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("open", open.size());
+        metrics.put("queuedWrites", writes.size());
+        metrics.put("replayedAtStartup", replayedEntries);
+        metrics.put("records", records.sum());
+        metrics.put("commits", commitCount);
+        metrics.put("avgRecordsPerCommit", commitCount == 0 ? 0 : (double) records.sum() / commitCount);
+        metrics.put("bytesWritten", bytesWritten.sum());
+        metrics.put("delivered", delivered.sum());
+        metrics.put("failedAttempts", failedAttempts.sum());
+        metrics.put("dead", dead.sum());
+        metrics.put("discarded", discarded.sum());
+        metrics.put("compactions", compactions.sum());
+        metrics.put("reclaimed", reclaimed.sum());
+        return metrics;
+    }
+    
+    /**
+     * A journaled notification; the content is what gets re-sent, so retries do
+     * not depend on the order or user still being loadable
+     */
+    public static final class Entry {
+        private final long id;
+        private final Channel channel;
+        private final String recipient;
+        private final String subject;
+        private final String body;
+        private final String priority;
+        private final String coalescingKey;
+        private volatile int attempts;
+        private volatile long nextAttemptAt;
+        private volatile String lastError;
+        // Not journaled: an attempt is running or queued in this process, since claimedAt
+        private volatile boolean inFlight;
+        private volatile long claimedAt;
+        
+        private Entry(long id, Channel channel, String recipient, String subject, String body, String priority,
+                      String coalescingKey) {
+            this.id = id;
+            this.channel = channel;
+            this.recipient = recipient;
+            this.subject = subject;
+            this.body = body;
+            this.priority = priority;
+            this.coalescingKey = coalescingKey;
+        }
+        
+        public long getId() {
+            return id;
+        }
+        
+        public Channel getChannel() {
+            return channel;
+        }
+        
+        public String getRecipient() {
+            return recipient;
+        }
+        
+        public String getSubject() {
+            return subject;
+        }
+        
+        public String getBody() {
+            return body;
+        }
+        
+        /**
+         * The sender's queue priority, by name; null if it has none
+         */
+        public String getPriority() {
+            return priority;
+        }
+        
+        public String getCoalescingKey() {
+            return coalescingKey;
+        }
+        
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+    
+    private static final class PendingWrite {
+        private final byte[] record;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        
+        private PendingWrite(byte[] record) {
+            this.record = record;
+        }
+    }
+}
\ No newline at end of file
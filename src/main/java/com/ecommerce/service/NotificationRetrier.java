@@ -0,0 +1,46 @@
+package com.ecommerce.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Hands journaled notifications whose backoff has elapsed back to their channel's
+ * executor, including the ones replayed from the journal at startup
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationRetrier {
+    
+    private final NotificationJournal journal;
+    private final EmailService emailService;
+    private final SmsService smsService;
+    
+    @Value("${notification.retry.batch-size:200}")
+    private int batchSize;
+    
+    @Scheduled(fixedDelayString = "${notification.retry.interval:PT1S}")
+    public void retryDue() {
+        List<NotificationJournal.Entry> due = journal.claimDue(batchSize);
+        for (int i = 0; i < due.size(); i++) {
+            NotificationJournal.Entry entry = due.get(i);
+            try {
+                switch (entry.getChannel()) {
+                    case EMAIL -> emailService.redeliver(entry);
+                    case SMS -> smsService.redeliver(entry);
+                }
+            } catch (TaskRejectedException e) {
+                // Executor is saturated; leave the rest for the next pass
+                log.debug("Deferring {} notification retries, executor is full", due.size() - i);
+                due.subList(i, due.size()).forEach(journal::unclaim);
+                return;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.ecommerce.service;
+
+import com.ecommerce.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves finished orders (DELIVERED or CANCELLED) older than
+ * {@code order.archive.after} from the hot {@code orders}/{@code order_items}
+ * tables to {@code orders_archive}/{@code order_items_archive}, in batches of one
+ * transaction each. Open orders are never archived, so every write path keeps
+ * working on the hot tables only.
+ */
+@Service
+@Slf4j
+public class OrderArchiveService implements MetricsSource {
+    
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration archiveAfter;
+    private final int batchSize;
+    
+    private String orderColumns;
+    private String itemColumns;
+    
+    private final LongAdder archivedOrders = new LongAdder();
+    private volatile LocalDateTime lastRun;
+    
+    public OrderArchiveService(NamedParameterJdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               // Only injected so the hot tables exist before the archive tables are created
+                               EntityManagerFactory entityManagerFactory,
+                               @Value("${order.archive.enabled:true}") boolean enabled,
+                               @Value("${order.archive.after:180d}") Duration archiveAfter,
+                               @Value("${order.archive.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.archiveAfter = archiveAfter;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Create the archive tables with the hot tables' layout
+     */
+    @PostConstruct
+    public void createArchiveTables() {
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE IF NOT EXISTS orders_archive LIKE orders");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE IF NOT EXISTS order_items_archive LIKE order_items");
+        orderColumns = sharedColumns("orders", "orders_archive");
+        itemColumns = sharedColumns("order_items", "order_items_archive");
+    }
+    
+    @Scheduled(fixedDelayString = "${order.archive.interval:PT1H}", initialDelayString = "${order.archive.interval:PT1H}")
+    public void archiveOldOrders() {
+        if (!enabled) {
+            return;
+        }
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(archiveAfter));
+        long started = System.currentTimeMillis();
+        long moved = 0;
+        int batch;
+        do {
+            batch = Objects.requireNonNullElse(transactionTemplate.execute(status -> moveBatch(cutoff)), 0);
+            moved += batch;
+        } while (batch == batchSize);
+        lastRun = LocalDateTime.now();
+        if (moved > 0) {
+            log.info("Archived {} orders created before {} in {} ms", moved, cutoff, System.currentTimeMillis() - started);
+        }
+    }
+    
+    private int moveBatch(Timestamp cutoff) {
+        List<Long> orderIds = jdbcTemplate.queryForList(
+                "SELECT id FROM orders WHERE created_at < :cutoff AND status IN ('DELIVERED', 'CANCELLED') "
+                + "ORDER BY id LIMIT :limit FOR UPDATE",
+                new MapSqlParameterSource("cutoff", cutoff).addValue("limit", batchSize),
+                Long.class);
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", orderIds);
+        jdbcTemplate.update("INSERT INTO orders_archive (" + orderColumns + ") SELECT " + orderColumns
+                + " FROM orders WHERE id IN (:ids)", ids);
+        jdbcTemplate.update("INSERT INTO order_items_archive (" + itemColumns + ") SELECT " + itemColumns
+                + " FROM order_items WHERE order_id IN (:ids)", ids);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (:ids)", ids);
+        jdbcTemplate.update("DELETE FROM orders WHERE id IN (:ids)", ids);
+        archivedOrders.add(orderIds.size());
+        return orderIds.size();
+    }
+    
+    /**
+     * Columns present in both tables, so a column added to the hot table later
+     * does not break the copy
+     */
+    private String sharedColumns(String hotTable, String archiveTable) {
+        String sql = "SELECT column_name FROM information_schema.columns "
+                + "WHERE table_schema = DATABASE() AND table_name = :table ORDER BY ordinal_position";
+        List<String> hot = jdbcTemplate.queryForList(sql, new MapSqlParameterSource("table", hotTable), String.class);
+        Set<String> archive = new HashSet<>(
+                jdbcTemplate.queryForList(sql, new MapSqlParameterSource("table", archiveTable), String.class));
+        List<String> shared = new ArrayList<>();
+        for (String column : hot) {
+            if (archive.contains(column)) {
+                shared.add(column);
+            } else {
+                log.warn("Column {}.{} is missing from {} and will not be archived", hotTable, column, archiveTable);
+            }
+        }
+        return String.join(", ", shared);
+    }
+    
+    @Override
+    public String getMetricsName() {
+        return "orderArchive";
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("archiveAfterDays", archiveAfter.toDays());
+        metrics.put("archivedSinceStart", archivedOrders.sum());
+        metrics.put("lastRun", lastRun);
+        return metrics;
+    }
+}
\ No newline at end of file
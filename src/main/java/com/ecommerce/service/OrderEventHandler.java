@@ -0,0 +1,13 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OutboxEvent;
+
+/**
+ * Receives order lifecycle events from the outbox. Delivery is at least once, so
+ * a handler may see the same event again after a failure; throwing schedules a retry.
+ */
+public interface OrderEventHandler {
+    
+    void handle(OutboxEvent event, Order order);
+}
\ No newline at end of file
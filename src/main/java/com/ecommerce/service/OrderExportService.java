@@ -0,0 +1,212 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes orders straight from a forward-only JDBC cursor to the response, one row
+ * at a time. No entities are materialized, so heap use stays flat however many
+ * orders match. Ranges reaching past the archive cutoff also read
+ * {@code orders_archive}, the same way the order history does.
+ */
+@Service
+@Slf4j
+public class OrderExportService {
+    
+    private static final String[] COLUMNS = {
+            "id", "userId", "userEmail", "status", "totalAmount", "itemCount",
+            "paymentMethod", "paymentId", "shippingAddress", "createdAt", "updatedAt"
+    };
+    
+    // %1$s is the orders table and %2$s its items table, hot or archive
+    private static final String SELECT_SQL =
+            "SELECT o.id, o.user_id, u.email, o.status, o.total_amount, "
+            + "(SELECT COUNT(*) FROM %2$s i WHERE i.order_id = o.id) AS item_count, "
+            + "o.payment_method, o.payment_id, o.shipping_address, o.created_at, o.updated_at "
+            + "FROM %1$s o JOIN users u ON u.id = o.user_id";
+    
+    private static final int FLUSH_EVERY_ROWS = 500;
+    
+    private final JdbcTemplate exportJdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration archiveAfter;
+    
+    public OrderExportService(DataSource dataSource,
+                              ObjectMapper objectMapper,
+                              @Value("${order.export.fetch-size:500}") int fetchSize,
+                              @Value("${order.archive.after:180d}") Duration archiveAfter) {
+        this.exportJdbcTemplate = new JdbcTemplate(dataSource);
+        this.exportJdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+        this.archiveAfter = archiveAfter;
+    }
+    
+    public enum Format {
+        CSV, NDJSON;
+        
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+    }
+    
+    public void export(OutputStream out, Format format, LocalDateTime from, LocalDateTime to,
+                       Order.OrderStatus status) throws IOException {
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (from != null) {
+            conditions.add("o.created_at >= ?");
+            params.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            conditions.add("o.created_at < ?");
+            params.add(Timestamp.valueOf(to));
+        }
+        if (status != null) {
+            conditions.add("o.status = ?");
+            params.add(status.name());
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        StringBuilder sql = new StringBuilder(String.format(SELECT_SQL, "orders", "order_items")).append(where);
+        // The archive only holds orders older than the cutoff
+        if (from == null || from.isBefore(LocalDateTime.now().minus(archiveAfter))) {
+            sql.append(" UNION ALL ").append(String.format(SELECT_SQL, "orders_archive", "order_items_archive"))
+                    .append(where);
+            params.addAll(List.copyOf(params));
+        }
+        sql.append(" ORDER BY 1");
+        
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        long[] rows = {0};
+        try {
+            exportJdbcTemplate.query(sql.toString(), rs -> {
+                try {
+                    rowWriter.write(rs);
+                    if (++rows[0] % FLUSH_EVERY_ROWS == 0) {
+                        rowWriter.flush();
+                    }
+                } catch (IOException e) {
+                    // Client went away; abort the query instead of reading the rest of the cursor
+                    throw new UncheckedIOException(e);
+                }
+            }, params.toArray());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        rowWriter.flush();
+        log.info("Exported {} orders as {}", rows[0], format);
+    }
+    
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+        
+        void flush() throws IOException;
+    }
+    
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private final StringBuilder line = new StringBuilder(256);
+        
+        private CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+        
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            line.setLength(0);
+            line.append(rs.getLong(1)).append(',');
+            line.append(rs.getLong(2)).append(',');
+            Csv.appendField(line, rs.getString(3));
+            line.append(',');
+            Csv.appendField(line, rs.getString(4));
+            line.append(',');
+            line.append(rs.getDouble(5)).append(',');
+            line.append(rs.getLong(6)).append(',');
+            Csv.appendField(line, rs.getString(7));
+            line.append(',');
+            Csv.appendField(line, rs.getString(8));
+            line.append(',');
+            Csv.appendField(line, rs.getString(9));
+            line.append(',');
+            appendTimestamp(line, rs.getTimestamp(10));
+            line.append(',');
+            appendTimestamp(line, rs.getTimestamp(11));
+            line.append('\n');
+            writer.append(line);
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+        
+        private static void appendTimestamp(StringBuilder line, Timestamp timestamp) {
+            if (timestamp != null) {
+                line.append(timestamp.toLocalDateTime());
+            }
+        }
+    }
+    
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        
+        private NdjsonRowWriter(Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.setRootValueSeparator(null);
+        }
+        
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField(COLUMNS[0], rs.getLong(1));
+            generator.writeNumberField(COLUMNS[1], rs.getLong(2));
+            generator.writeStringField(COLUMNS[2], rs.getString(3));
+            generator.writeStringField(COLUMNS[3], rs.getString(4));
+            generator.writeNumberField(COLUMNS[4], rs.getDouble(5));
+            generator.writeNumberField(COLUMNS[5], rs.getLong(6));
+            generator.writeStringField(COLUMNS[6], rs.getString(7));
+            generator.writeStringField(COLUMNS[7], rs.getString(8));
+            generator.writeStringField(COLUMNS[8], rs.getString(9));
+            writeTimestamp(COLUMNS[9], rs.getTimestamp(10));
+            writeTimestamp(COLUMNS[10], rs.getTimestamp(11));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+        
+        private void writeTimestamp(String field, Timestamp timestamp) throws IOException {
+            if (timestamp == null) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeStringField(field, timestamp.toLocalDateTime().toString());
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OutboxEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends the customer email and SMS for order events. Status messages show the
+ * status the event moved the order to, not the order's current one, since the
+ * order may have moved on before the event is delivered.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderNotificationHandler implements OrderEventHandler {
+    
+    private final EmailService emailService;
+    private final SmsService smsService;
+    private final ObjectMapper objectMapper;
+    
+    @Override
+    public void handle(OutboxEvent event, Order order) {
+        switch (event.getEventType()) {
+            case ORDER_CREATED -> {
+                emailService.sendOrderConfirmationEmail(order.getUser(), order);
+                smsService.sendOrderConfirmationSms(order.getUser(), order);
+            }
+            case ORDER_PAID -> sendStatusUpdate(order, Order.OrderStatus.CONFIRMED);
+            case ORDER_STATUS_CHANGED -> sendStatusUpdate(order, targetStatus(event, order));
+        }
+    }
+    
+    private void sendStatusUpdate(Order order, Order.OrderStatus status) {
+        emailService.sendOrderStatusUpdateEmail(order.getUser(), order, status);
+        smsService.sendOrderStatusUpdateSms(order.getUser(), order, status);
+    }
+    
+    /**
+     * The {@code to} status of the event payload; events without one fall back
+     * to the order's current status
+     */
+    private Order.OrderStatus targetStatus(OutboxEvent event, Order order) {
+        if (event.getPayload() == null) {
+            return order.getStatus();
+        }
+        try {
+            JsonNode to = objectMapper.readTree(event.getPayload()).get("to");
+            return to == null ? order.getStatus() : Order.OrderStatus.valueOf(to.asText());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable payload of outbox event " + event.getId(), e);
+        }
+    }
+}
\ No newline at end of file
@@ -1,12 +1,21 @@
 package com.ecommerce.service;
 
+import com.ecommerce.config.PaginationProperties;
+import com.ecommerce.dto.CursorPage;
+import com.ecommerce.event.OrderCancelledEvent;
+import com.ecommerce.event.OrderCreatedEvent;
 import com.ecommerce.model.*;
+import com.ecommerce.pricing.Money;
+import com.ecommerce.pricing.PricingEngine;
 import com.ecommerce.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -15,9 +24,18 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final CartService cartService;
     private final UserService userService;
+    private final PaginationProperties pagination;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockReservationService stockReservationService;
+    private final OutboxService outboxService;
+    private final PricingEngine pricingEngine;
+    private final SalesRollupService salesRollupService;
     
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    public CursorPage<Order> getAllOrders(String cursor, Integer size) {
+        return CursorPage.of(
+                orderRepository.findByIdGreaterThanOrderByIdAsc(
+                        CursorPage.decodeCursor(cursor), pagination.pageable(size)),
+                Order::getId);
     }
     
     public Order getOrderById(Long id) {
@@ -25,8 +43,29 @@ public class OrderService {
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
     }
     
-    public List<Order> getOrdersByUserId(Long userId) {
-        return orderRepository.findByUserId(userId);
+    /**
+     * Like {@link #getOrderById} but also finds archived orders (read-only copies)
+     */
+    public Order getOrderIncludingArchive(Long id) {
+        return orderRepository.findById(id)
+                .or(() -> orderRepository.findArchivedById(id))
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+    }
+    
+    /**
+     * Orders of the user still in the hot tables, in id order (see
+     * {@link CursorPage} on how that relates to creation order). Archived orders
+     * are left out; {@link #getOrderHistory} includes them.
+     */
+    public CursorPage<Order> getOrdersByUserId(Long userId, String cursor, Integer size) {
+        return CursorPage.of(
+                orderRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(
+                        userId, CursorPage.decodeCursor(cursor), pagination.pageable(size)),
+                Order::getId);
+    }
+    
+    public List<Order> getOrderHistory(Long userId, LocalDateTime from, LocalDateTime to) {
+        return orderRepository.findByUserIdCreatedBetween(userId, from, to);
     }
     
     @Transactional
@@ -44,7 +83,6 @@ public class OrderService {
         order.setPaymentMethod(paymentMethod);
         order.setStatus(Order.OrderStatus.PENDING);
         
-        double totalAmount = 0.0;
         for (CartItem cartItem : cart.getItems()) {
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
@@ -52,32 +90,74 @@ public class OrderService {
             orderItem.setQuantity(cartItem.getQuantity());
             orderItem.setPrice(cartItem.getProduct().getPrice());
             order.getItems().add(orderItem);
-            totalAmount += orderItem.getSubtotal();
         }
         
-        order.setTotalAmount(totalAmount);
+        order.setTotalAmount(Money.toAmount(pricingEngine.priceOrder(order.getItems()).getTotalCents()));
+        stockReservationService.reserve(order.getItems());
         Order savedOrder = orderRepository.save(order);
         
         cartService.clearCart(userId);
+        outboxService.record(OutboxEvent.EventType.ORDER_CREATED, savedOrder.getId(), null);
+        eventPublisher.publishEvent(OrderCreatedEvent.of(savedOrder));
+        salesRollupService.recordPlaced(savedOrder);
         
         return savedOrder;
     }
     
+    @Transactional
     public Order updateOrderStatus(Long orderId, Order.OrderStatus status) {
         Order order = getOrderById(orderId);
-        order.setStatus(status);
-        return orderRepository.save(order);
+        Order.OrderStatus current = order.getStatus();
+        if (current == status) {
+            return order;
+        }
+        if (!current.canTransitionTo(status)) {
+            throw new RuntimeException("Order " + orderId + " cannot move from " + current + " to " + status);
+        }
+        if (orderRepository.transitionStatus(orderId, current, status) == 0) {
+            throw new RuntimeException("Order " + orderId + " was modified concurrently");
+        }
+        order = getOrderById(orderId);
+        if (status == Order.OrderStatus.CANCELLED) {
+            stockReservationService.release(order);
+            salesRollupService.recordRemoved(List.of(order));
+            eventPublisher.publishEvent(OrderCancelledEvent.of(order));
+        }
+        outboxService.record(OutboxEvent.EventType.ORDER_STATUS_CHANGED, orderId,
+                Map.of("from", current, "to", status));
+        return order;
     }
     
+    /**
+     * Confirm a PENDING order as paid. Repeating the call with the same payment
+     * id returns the order unchanged; any other call on an order that is no
+     * longer PENDING is rejected.
+     */
+    @Transactional
     public Order updatePaymentId(Long orderId, String paymentId) {
-        Order order = getOrderById(orderId);
-        order.setPaymentId(paymentId);
-        order.setStatus(Order.OrderStatus.CONFIRMED);
-        return orderRepository.save(order);
+        if (orderRepository.confirmPayment(orderId, paymentId) == 0) {
+            Order order = getOrderById(orderId);
+            if (order.getStatus() != Order.OrderStatus.CANCELLED && paymentId.equals(order.getPaymentId())) {
+                return order;
+            }
+            throw new RuntimeException("Order " + orderId + " cannot be paid in status " + order.getStatus()
+                    + (order.getPaymentId() != null ? ", it is already paid" : ""));
+        }
+        outboxService.record(OutboxEvent.EventType.ORDER_PAID, orderId, Map.of("paymentId", paymentId));
+        return getOrderById(orderId);
     }
     
+    @Transactional
     public void deleteOrder(Long id) {
         Order order = getOrderById(id);
+        // Orders that have not shipped still hold their stock
+        if (order.getStatus() == Order.OrderStatus.PENDING || order.getStatus() == Order.OrderStatus.CONFIRMED) {
+            stockReservationService.release(order);
+        }
+        if (order.getStatus() != Order.OrderStatus.CANCELLED) {
+            salesRollupService.recordRemoved(List.of(order));
+            eventPublisher.publishEvent(OrderCancelledEvent.of(order));
+        }
         orderRepository.delete(order);
     }
 }
\ No newline at end of file
@@ -0,0 +1,160 @@
+package com.ecommerce.service;
+
+import com.ecommerce.metrics.MetricsSource;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OutboxEvent;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drains the outbox in batches and hands each event to every
+ * {@link OrderEventHandler}. An event is deleted only after all handlers
+ * succeeded; otherwise it is retried with exponential backoff and parked after
+ * {@code outbox.max-attempts}. Checkout never waits on any of this.
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher implements MetricsSource {
+    
+    private static final int MAX_ERROR_LENGTH = 1000;
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final OrderRepository orderRepository;
+    private final List<OrderEventHandler> handlers;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder parked = new LongAdder();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final LongAccumulator maxLagMillis = new LongAccumulator(Math::max, 0);
+    private final LongAdder totalLagMillis = new LongAdder();
+    
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            OrderRepository orderRepository,
+                            List<OrderEventHandler> handlers,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${outbox.batch-size:100}") int batchSize,
+                            @Value("${outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.retry-backoff:5s}") Duration retryBackoff,
+                            @Value("${outbox.max-retry-backoff:10m}") Duration maxRetryBackoff) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.orderRepository = orderRepository;
+        this.handlers = handlers;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+    }
+    
+    @Scheduled(fixedDelayString = "${outbox.dispatch-interval:PT1S}")
+    public void dispatch() {
+        Integer claimed;
+        do {
+            claimed = transactionTemplate.execute(status -> dispatchBatch());
+        } while (claimed != null && claimed == batchSize);
+    }
+    
+    private int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = outboxEventRepository.lockDueEvents(now, PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        
+        Set<Long> orderIds = new HashSet<>();
+        for (OutboxEvent event : events) {
+            orderIds.add(event.getOrderId());
+        }
+        Map<Long, Order> orders = new HashMap<>();
+        for (Order order : orderRepository.findAllById(orderIds)) {
+            orders.put(order.getId(), order);
+        }
+        
+        List<OutboxEvent> done = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            Order order = orders.get(event.getOrderId());
+            if (order == null) {
+                // Order deleted since; nobody left to notify
+                done.add(event);
+                continue;
+            }
+            try {
+                for (OrderEventHandler handler : handlers) {
+                    handler.handle(event, order);
+                }
+                done.add(event);
+                long lag = Duration.between(event.getCreatedAt(), LocalDateTime.now()).toMillis();
+                lastLagMillis.set(lag);
+                maxLagMillis.accumulate(lag);
+                totalLagMillis.add(lag);
+                dispatched.increment();
+            } catch (RuntimeException e) {
+                scheduleRetry(event, e, now);
+            }
+        }
+        outboxEventRepository.deleteAllInBatch(done);
+        return events.size();
+    }
+    
+    private void scheduleRetry(OutboxEvent event, RuntimeException failure, LocalDateTime now) {
+        failedAttempts.increment();
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        String message = String.valueOf(failure.getMessage());
+        event.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        if (attempts >= maxAttempts) {
+            event.setNextAttemptAt(null);
+            parked.increment();
+            log.error("Outbox event {} ({} for order {}) parked after {} attempts",
+                    event.getId(), event.getEventType(), event.getOrderId(), attempts, failure);
+        } else {
+            long shift = Math.min(attempts - 1, 20);
+            Duration backoff = retryBackoff.multipliedBy(1L << shift);
+            event.setNextAttemptAt(now.plus(backoff.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : backoff));
+            log.warn("Outbox event {} failed (attempt {}): {}", event.getId(), attempts, message);
+        }
+    }
+    
+    @Override
+    public String getMetricsName() {
+        return "outbox";
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        long dispatchedCount = dispatched.sum();
+        LocalDateTime oldest = outboxEventRepository.findOldestPendingCreatedAt();
+        
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pending", outboxEventRepository.countByNextAttemptAtIsNotNull());
+        metrics.put("parked", outboxEventRepository.countByNextAttemptAtIsNull());
+        metrics.put("oldestPendingAgeMillis", oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis());
+        metrics.put("dispatched", dispatchedCount);
+        metrics.put("failedAttempts", failedAttempts.sum());
+        metrics.put("parkedSinceStart", parked.sum());
+        metrics.put("lastLagMillis", lastLagMillis.get());
+        metrics.put("maxLagMillis", maxLagMillis.get());
+        metrics.put("averageLagMillis", dispatchedCount == 0 ? 0.0 : (double) totalLagMillis.sum() / dispatchedCount);
+        return metrics;
+    }
+}
\ No newline at end of file
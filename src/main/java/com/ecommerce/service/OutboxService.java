@@ -0,0 +1,69 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.OutboxEvent;
+import com.ecommerce.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records order lifecycle events. Callers must already be in the transaction
+ * that changes the order, so the event exists if and only if the change commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_events (event_type, order_id, payload, attempts, next_attempt_at, created_at) "
+            + "VALUES (?, ?, ?, 0, ?, ?)";
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OutboxEvent.EventType type, Long orderId, Map<String, ?> payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(type);
+        event.setOrderId(orderId);
+        event.setPayload(toJson(payload));
+        outboxEventRepository.save(event);
+    }
+    
+    /**
+     * The same event for many orders, written as one JDBC batch
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(OutboxEvent.EventType type, List<Long> orderIds, Map<String, ?> payload) {
+        String json = toJson(payload);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, orderIds, orderIds.size(), (ps, orderId) -> {
+            ps.setString(1, type.name());
+            ps.setLong(2, orderId);
+            ps.setString(3, json);
+            ps.setTimestamp(4, now);
+            ps.setTimestamp(5, now);
+        });
+    }
+    
+    private String toJson(Map<String, ?> payload) {
+        if (payload == null || payload.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unserializable outbox payload", e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+
+import java.util.Collection;
+
+/**
+ * In-memory catalog structures kept current by {@link ProductService} writes
+ */
+public interface ProductChangeListener {
+    
+    /**
+     * Replace all state with the given catalog, called at startup
+     */
+    void rebuild(Collection<Product> products);
+    
+    /**
+     * A product was created or updated
+     */
+    void onProductSaved(Product product);
+    
+    void onProductDeleted(Long productId);
+}
\ No newline at end of file
@@ -0,0 +1,253 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductImportResult;
+import com.ecommerce.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Streams NDJSON or CSV product rows into the catalog. Rows are validated as they
+ * are read and upserted in JDBC batches, one transaction per batch, so memory use
+ * does not depend on the size of the upload. Rows with an id update that product,
+ * rows without one are inserted.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportService {
+    
+    private static final String UPSERT_SQL =
+            "INSERT INTO products (id, name, description, price, category, image_url, stock_quantity, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE name = VALUES(name), description = VALUES(description), price = VALUES(price), "
+            + "category = VALUES(category), image_url = VALUES(image_url), stock_quantity = VALUES(stock_quantity), "
+            + "updated_at = VALUES(updated_at)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ProductService productService;
+    
+    @Value("${product.import.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${product.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+    
+    public ProductImportResult importNdjson(InputStream input) throws IOException {
+        ObjectReader productReader = objectMapper.readerFor(Product.class);
+        ImportRun run = new ImportRun();
+        try (run; BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    run.accept(lineNumber, productReader.readValue(line));
+                } catch (JsonProcessingException e) {
+                    run.reject(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+            return run.finish();
+        }
+    }
+    
+    /**
+     * CSV with a header row naming the columns: id, name, description, price,
+     * category, imageUrl, stockQuantity (snake_case names are accepted too)
+     */
+    public ProductImportResult importCsv(InputStream input) throws IOException {
+        ImportRun run = new ImportRun();
+        try (run; BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Csv.RecordReader records = new Csv.RecordReader(reader);
+            List<String> header = records.next();
+            if (header == null) {
+                return run.finish();
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(normalizeColumn(header.get(i)), i);
+            }
+            
+            List<String> record;
+            while ((record = records.next()) != null) {
+                long lineNumber = records.recordLine();
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                try {
+                    run.accept(lineNumber, toProduct(columns, record));
+                } catch (IllegalArgumentException e) {
+                    run.reject(lineNumber, e.getMessage());
+                }
+            }
+            return run.finish();
+        }
+    }
+    
+    private static Product toProduct(Map<String, Integer> columns, List<String> record) {
+        Product product = new Product();
+        String id = column(columns, record, "id");
+        product.setId(id == null ? null : parseNumber(id, "id", Long::valueOf));
+        product.setName(column(columns, record, "name"));
+        product.setDescription(column(columns, record, "description"));
+        String price = column(columns, record, "price");
+        product.setPrice(price == null ? null : parseNumber(price, "price", Double::valueOf));
+        product.setCategory(column(columns, record, "category"));
+        product.setImageUrl(column(columns, record, "imageurl"));
+        String stock = column(columns, record, "stockquantity");
+        product.setStockQuantity(stock == null ? null : parseNumber(stock, "stockQuantity", Integer::valueOf));
+        return product;
+    }
+    
+    private static String column(Map<String, Integer> columns, List<String> record, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    private static <T> T parseNumber(String value, String field, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + ": not a number: " + value);
+        }
+    }
+    
+    private static String normalizeColumn(String name) {
+        return name.trim().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+    
+    private void setParameters(PreparedStatement ps, Product product, Timestamp now) throws SQLException {
+        if (product.getId() == null) {
+            ps.setNull(1, Types.BIGINT);
+        } else {
+            ps.setLong(1, product.getId());
+        }
+        ps.setString(2, product.getName());
+        ps.setString(3, product.getDescription());
+        ps.setDouble(4, product.getPrice());
+        ps.setString(5, product.getCategory());
+        ps.setString(6, product.getImageUrl());
+        ps.setInt(7, product.getStockQuantity());
+        ps.setTimestamp(8, now);
+        ps.setTimestamp(9, now);
+    }
+    
+    /**
+     * State of one upload: the pending batch and the running totals. Closing it
+     * reloads the catalog if anything was committed, also when the upload broke
+     * off part way, since earlier batches stay committed.
+     */
+    private class ImportRun implements AutoCloseable {
+        
+        private final List<Product> batch = new ArrayList<>(batchSize);
+        private final List<Long> batchLines = new ArrayList<>(batchSize);
+        private final ProductImportResult result = new ProductImportResult();
+        private final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        
+        void accept(long line, Product product) {
+            result.setProcessed(result.getProcessed() + 1);
+            Set<ConstraintViolation<Product>> violations = validator.validate(product);
+            if (!violations.isEmpty()) {
+                recordError(line, violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            batch.add(product);
+            batchLines.add(line);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+        
+        void reject(long line, String message) {
+            result.setProcessed(result.getProcessed() + 1);
+            recordError(line, message);
+        }
+        
+        ProductImportResult finish() {
+            flush();
+            log.info("Product import finished: {} processed, {} imported, {} failed",
+                    result.getProcessed(), result.getImported(), result.getFailed());
+            return result;
+        }
+        
+        @Override
+        public void close() {
+            if (result.getImported() > 0) {
+                productService.reloadCatalog();
+            }
+        }
+        
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(UPSERT_SQL, batch, batch.size(),
+                                (ps, product) -> setParameters(ps, product, now)));
+                result.setImported(result.getImported() + batch.size());
+            } catch (DataAccessException batchFailure) {
+                // Retry row by row so only the offending rows are reported
+                log.debug("Import batch failed, retrying rows individually", batchFailure);
+                for (int i = 0; i < batch.size(); i++) {
+                    Product product = batch.get(i);
+                    try {
+                        jdbcTemplate.update(UPSERT_SQL, ps -> setParameters(ps, product, now));
+                        result.setImported(result.getImported() + 1);
+                    } catch (DataAccessException rowFailure) {
+                        recordError(batchLines.get(i), rowFailure.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+            batch.clear();
+            batchLines.clear();
+        }
+        
+        private void recordError(long line, String message) {
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < maxReportedErrors) {
+                result.getErrors().add(new ProductImportResult.RowError(line, message));
+            } else {
+                result.setErrorsTruncated(true);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,205 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Per-category products sorted by price in parallel primitive arrays. A price-band
+ * lookup is a binary search followed by a scan of the k matches, without loading
+ * any entity. Writers copy only the arrays of the categories they touch.
+ */
+@Component
+@Slf4j
+public class ProductPriceIndex implements ProductChangeListener {
+    
+    private static final long[] EMPTY = new long[0];
+    
+    private volatile Map<String, PriceBand> bands = Collections.emptyMap();
+    private final Map<Long, IndexedPrice> indexedPrices = new HashMap<>();
+    
+    @Override
+    public synchronized void rebuild(Collection<Product> products) {
+        Map<String, List<Product>> byCategory = new HashMap<>();
+        indexedPrices.clear();
+        for (Product product : products) {
+            String key = CategoryIndex.categoryKey(product.getCategory());
+            byCategory.computeIfAbsent(key, k -> new ArrayList<>()).add(product);
+            indexedPrices.put(product.getId(), new IndexedPrice(key, product.getPrice()));
+        }
+        
+        Map<String, PriceBand> rebuilt = new HashMap<>();
+        for (Map.Entry<String, List<Product>> entry : byCategory.entrySet()) {
+            List<Product> sorted = entry.getValue();
+            sorted.sort(Comparator.comparingDouble(Product::getPrice).thenComparing(Product::getId));
+            double[] prices = new double[sorted.size()];
+            long[] ids = new long[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                prices[i] = sorted.get(i).getPrice();
+                ids[i] = sorted.get(i).getId();
+            }
+            rebuilt.put(entry.getKey(), new PriceBand(prices, ids));
+        }
+        bands = rebuilt;
+        log.info("Price index built for {} categories", rebuilt.size());
+    }
+    
+    @Override
+    public synchronized void onProductSaved(Product product) {
+        String key = CategoryIndex.categoryKey(product.getCategory());
+        double price = product.getPrice();
+        IndexedPrice previous = indexedPrices.put(product.getId(), new IndexedPrice(key, price));
+        if (previous != null && previous.categoryKey.equals(key) && previous.price == price) {
+            return;
+        }
+        
+        Map<String, PriceBand> updated = new HashMap<>(bands);
+        if (previous != null) {
+            removeFrom(updated, previous, product.getId());
+        }
+        PriceBand band = updated.getOrDefault(key, PriceBand.EMPTY);
+        updated.put(key, band.with(price, product.getId()));
+        bands = updated;
+    }
+    
+    @Override
+    public synchronized void onProductDeleted(Long productId) {
+        IndexedPrice previous = indexedPrices.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        Map<String, PriceBand> updated = new HashMap<>(bands);
+        removeFrom(updated, previous, productId);
+        bands = updated;
+    }
+    
+    /**
+     * Ids of up to {@code limit} products of the category priced within
+     * [minPrice, maxPrice], closest to {@code targetPrice} first
+     */
+    public long[] findNearestInPriceRange(String category, double targetPrice, double minPrice, double maxPrice,
+                                          long excludeId, int limit) {
+        PriceBand band = bands.get(CategoryIndex.categoryKey(category));
+        if (band == null || limit <= 0) {
+            return EMPTY;
+        }
+        
+        double[] prices = band.prices;
+        long[] ids = band.ids;
+        long[] result = new long[Math.min(limit, ids.length)];
+        int found = 0;
+        
+        // Walk outwards from the target price, taking the nearer neighbour each step
+        int right = lowerBound(prices, targetPrice);
+        int left = right - 1;
+        while (found < result.length) {
+            boolean leftOk = left >= 0 && prices[left] >= minPrice;
+            boolean rightOk = right < prices.length && prices[right] <= maxPrice;
+            if (!leftOk && !rightOk) {
+                break;
+            }
+            int next;
+            if (leftOk && (!rightOk || targetPrice - prices[left] <= prices[right] - targetPrice)) {
+                next = left--;
+            } else {
+                next = right++;
+            }
+            if (ids[next] != excludeId) {
+                result[found++] = ids[next];
+            }
+        }
+        return found == result.length ? result : Arrays.copyOf(result, found);
+    }
+    
+    private static void removeFrom(Map<String, PriceBand> bands, IndexedPrice previous, long productId) {
+        PriceBand band = bands.get(previous.categoryKey);
+        if (band == null) {
+            return;
+        }
+        PriceBand remaining = band.without(previous.price, productId);
+        if (remaining.ids.length == 0) {
+            bands.remove(previous.categoryKey);
+        } else {
+            bands.put(previous.categoryKey, remaining);
+        }
+    }
+    
+    /**
+     * First index whose price is not below the given price
+     */
+    private static int lowerBound(double[] prices, double price) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private static final class IndexedPrice {
+        private final String categoryKey;
+        private final double price;
+        
+        private IndexedPrice(String categoryKey, double price) {
+            this.categoryKey = categoryKey;
+            this.price = price;
+        }
+    }
+    
+    /**
+     * Immutable price-sorted arrays of one category, ties broken by id
+     */
+    private static final class PriceBand {
+        private static final PriceBand EMPTY = new PriceBand(new double[0], new long[0]);
+        
+        private final double[] prices;
+        private final long[] ids;
+        
+        private PriceBand(double[] prices, long[] ids) {
+            this.prices = prices;
+            this.ids = ids;
+        }
+        
+        private int positionOf(double price, long id) {
+            int pos = lowerBound(prices, price);
+            while (pos < prices.length && prices[pos] == price && ids[pos] < id) {
+                pos++;
+            }
+            return pos;
+        }
+        
+        private PriceBand with(double price, long id) {
+            int pos = positionOf(price, id);
+            double[] newPrices = new double[prices.length + 1];
+            long[] newIds = new long[ids.length + 1];
+            System.arraycopy(prices, 0, newPrices, 0, pos);
+            System.arraycopy(ids, 0, newIds, 0, pos);
+            newPrices[pos] = price;
+            newIds[pos] = id;
+            System.arraycopy(prices, pos, newPrices, pos + 1, prices.length - pos);
+            System.arraycopy(ids, pos, newIds, pos + 1, ids.length - pos);
+            return new PriceBand(newPrices, newIds);
+        }
+        
+        private PriceBand without(double price, long id) {
+            int pos = positionOf(price, id);
+            if (pos >= ids.length || ids[pos] != id) {
+                return this;
+            }
+            double[] newPrices = new double[prices.length - 1];
+            long[] newIds = new long[ids.length - 1];
+            System.arraycopy(prices, 0, newPrices, 0, pos);
+            System.arraycopy(ids, 0, newIds, 0, pos);
+            System.arraycopy(prices, pos + 1, newPrices, pos, prices.length - pos - 1);
+            System.arraycopy(ids, pos + 1, newIds, pos, ids.length - pos - 1);
+            return new PriceBand(newPrices, newIds);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,187 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product name, description and category.
+ * Terms are lower-cased alphanumeric tokens; a query token matches any indexed
+ * term it is a prefix of, so "lap" finds "laptop". Every query token must match
+ * for a product to be returned.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex implements ProductChangeListener {
+    
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    
+    // Exact term matches rank above prefix matches of the same field
+    private static final int EXACT_MATCH_BOOST = 2;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Product> products = new HashMap<>();
+    private final Map<Long, Map<String, Integer>> termsByProduct = new HashMap<>();
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    
+    @Override
+    public void rebuild(Collection<Product> allProducts) {
+        lock.writeLock().lock();
+        try {
+            products.clear();
+            termsByProduct.clear();
+            postings.clear();
+            for (Product product : allProducts) {
+                addLocked(product);
+            }
+            log.info("Product search index built with {} products and {} terms", products.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void onProductSaved(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            addLocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void onProductDeleted(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Search products matching every token of the keyword, best matches first
+     */
+    public List<Product> search(String keyword) {
+        List<String> queryTokens = new ArrayList<>(new LinkedHashSet<>(tokenize(keyword)));
+        if (queryTokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String token : queryTokens) {
+                Map<Long, Integer> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            
+            List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+            
+            List<Product> results = new ArrayList<>(ranked.size());
+            for (Map.Entry<Long, Integer> entry : ranked) {
+                results.add(products.get(entry.getKey()));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private Map<Long, Integer> scoreToken(String token) {
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Integer>> term : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            int boost = term.getKey().equals(token) ? EXACT_MATCH_BOOST : 1;
+            for (Map.Entry<Long, Integer> posting : term.getValue().entrySet()) {
+                int score = posting.getValue() * boost;
+                // A product hit by several terms sharing the prefix keeps its best one
+                scores.merge(posting.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+    
+    private void addLocked(Product product) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, product.getName(), NAME_WEIGHT);
+        addTerms(terms, product.getCategory(), CATEGORY_WEIGHT);
+        addTerms(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+        
+        products.put(product.getId(), product);
+        termsByProduct.put(product.getId(), terms);
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), k -> new HashMap<>())
+                    .put(product.getId(), term.getValue());
+        }
+    }
+    
+    private void removeLocked(Long productId) {
+        products.remove(productId);
+        Map<String, Integer> terms = termsByProduct.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Long, Integer> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(productId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+    
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Integer::sum);
+        }
+    }
+    
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
\ No newline at end of file
@@ -1,52 +1,162 @@
 package com.ecommerce.service;
 
+import com.ecommerce.cache.LruCache;
+import com.ecommerce.config.PaginationProperties;
+import com.ecommerce.dto.CursorPage;
 import com.ecommerce.model.Product;
 import com.ecommerce.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
     
+    private static final int BATCH_LOAD_SIZE = 1000;
+    
     private final ProductRepository productRepository;
+    private final ProductSearchIndex searchIndex;
+    private final CategoryIndex categoryIndex;
+    private final List<ProductChangeListener> productChangeListeners;
+    private final LruCache<Long, Product> productCache;
+    private final PaginationProperties pagination;
+    
+    @PostConstruct
+    public void buildIndexes() {
+        List<Product> products = productRepository.findAll();
+        for (ProductChangeListener listener : productChangeListeners) {
+            listener.rebuild(products);
+        }
+    }
+    
+    /**
+     * Drop cached products and rebuild the indexes after writes that bypassed this service
+     */
+    public void reloadCatalog() {
+        productCache.invalidateAll();
+        buildIndexes();
+    }
+    
+    /**
+     * Reload products changed by bulk updates (stock reservations) into the cache
+     * and indexes. Reads in a new transaction, since it is called after the
+     * writing transaction completed and that one's entities are stale.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void refreshProducts(Collection<Long> ids) {
+        ids.forEach(productCache::invalidate);
+        for (Product product : productRepository.findAllById(ids)) {
+            for (ProductChangeListener listener : productChangeListeners) {
+                listener.onProductSaved(product);
+            }
+        }
+    }
     
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public CursorPage<Product> getAllProducts(String cursor, Integer size) {
+        return CursorPage.of(
+                productRepository.findByIdGreaterThanOrderByIdAsc(
+                        CursorPage.decodeCursor(cursor), pagination.pageable(size)),
+                Product::getId);
     }
     
     public Product getProductById(Long id) {
+        return productCache.get(id, this::loadProduct);
+    }
+    
+    private Product loadProduct(Long id) {
         return productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
     
+    /**
+     * Products in the order of the given ids, served from the cache where possible
+     * and batch-loaded otherwise. Ids that no longer exist are skipped.
+     */
+    public List<Product> getProductsByIds(long[] ids) {
+        Map<Long, Product> found = new HashMap<>();
+        long loadStarted = productCache.generation();
+        List<Long> missing = new ArrayList<>();
+        for (long id : ids) {
+            Product product = productCache.get(id);
+            if (product != null) {
+                found.put(id, product);
+            } else {
+                missing.add(id);
+            }
+        }
+        
+        for (int from = 0; from < missing.size(); from += BATCH_LOAD_SIZE) {
+            List<Long> batch = missing.subList(from, Math.min(from + BATCH_LOAD_SIZE, missing.size()));
+            for (Product product : productRepository.findAllById(batch)) {
+                productCache.putUnlessInvalidatedSince(product.getId(), product, loadStarted);
+                found.put(product.getId(), product);
+            }
+        }
+        
+        List<Product> products = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Product product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+    
     public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category);
+        return getProductsByIds(categoryIndex.getProductIds(category));
     }
     
     public List<Product> searchProducts(String keyword) {
-        return productRepository.findByNameContainingIgnoreCase(keyword);
+        return searchIndex.search(keyword);
+    }
+    
+    /**
+     * Product counts per category, over the search result when a keyword is given
+     */
+    public Map<String, Integer> getCategoryFacets(String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            return categoryIndex.getCategoryCounts();
+        }
+        return categoryIndex.getCategoryCounts(searchIndex.search(keyword));
     }
     
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        for (ProductChangeListener listener : productChangeListeners) {
+            listener.onProductSaved(saved);
+        }
+        return saved;
     }
     
     public Product updateProduct(Long id, Product productDetails) {
-        Product product = getProductById(id);
+        // Load a fresh copy so the cached instance is never mutated
+        Product product = loadProduct(id);
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
         product.setPrice(productDetails.getPrice());
         product.setCategory(productDetails.getCategory());
         product.setImageUrl(productDetails.getImageUrl());
         product.setStockQuantity(productDetails.getStockQuantity());
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productCache.invalidate(id);
+        for (ProductChangeListener listener : productChangeListeners) {
+            listener.onProductSaved(saved);
+        }
+        return saved;
     }
     
     public void deleteProduct(Long id) {
         Product product = getProductById(id);
         productRepository.delete(product);
+        productCache.invalidate(id);
+        for (ProductChangeListener listener : productChangeListeners) {
+            listener.onProductDeleted(id);
+        }
     }
 }
\ No newline at end of file
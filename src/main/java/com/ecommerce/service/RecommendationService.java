@@ -2,7 +2,6 @@ package com.ecommerce.service;
 
 import com.ecommerce.model.Product;
 import com.ecommerce.repository.OrderRepository;
-import com.ecommerce.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -15,7 +14,10 @@ import java.util.stream.Collectors;
 @Slf4j
 public class RecommendationService {
     
-    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ProductPriceIndex priceIndex;
+    private final SalesPopularityTracker popularityTracker;
+    private final CoPurchaseIndex coPurchaseIndex;
     private final OrderRepository orderRepository;
     
     /**
@@ -41,7 +43,7 @@ public class RecommendationService {
             // Get products from user's preferred categories
             List<Product> recommendations = new ArrayList<>();
             for (String category : userCategories) {
-                recommendations.addAll(productRepository.findByCategory(category));
+                recommendations.addAll(productService.getProductsByCategory(category));
             }
             
             // Remove duplicates and limit results
@@ -61,21 +63,15 @@ public class RecommendationService {
      */
     public List<Product> getSimilarProducts(Long productId, int limit) {
         try {
-            Product product = productRepository.findById(productId)
-                    .orElseThrow(() -> new RuntimeException("Product not found"));
+            Product product = productService.getProductById(productId);
             
-            // Find products in same category
-            List<Product> similarProducts = productRepository.findByCategory(product.getCategory());
-            
-            // Filter by similar price range (±30%)
+            // Same category within a similar price range (±30%), closest price first
             double minPrice = product.getPrice() * 0.7;
             double maxPrice = product.getPrice() * 1.3;
             
-            return similarProducts.stream()
-                    .filter(p -> !p.getId().equals(productId))
-                    .filter(p -> p.getPrice() >= minPrice && p.getPrice() <= maxPrice)
-                    .limit(limit)
-                    .collect(Collectors.toList());
+            long[] similarIds = priceIndex.findNearestInPriceRange(
+                    product.getCategory(), product.getPrice(), minPrice, maxPrice, productId, limit);
+            return productService.getProductsByIds(similarIds);
                     
         } catch (Exception e) {
             log.error("Error finding similar products for product {}", productId, e);
@@ -87,12 +83,28 @@ public class RecommendationService {
      * Get trending/popular products
      */
     public List<Product> getPopularProducts(int limit) {
-        // In a real implementation, this would be based on sales data, views, etc.
-        List<Product> allProducts = productRepository.findAll();
-        Collections.shuffle(allProducts);
-        return allProducts.stream()
-                .limit(limit)
-                .collect(Collectors.toList());
+        return getPopularProducts(SalesPopularityTracker.Window.LAST_DAY, limit);
+    }
+    
+    /**
+     * Get best-selling products of a rolling window, topped up with catalog
+     * products when there have not been enough sales
+     */
+    public List<Product> getPopularProducts(SalesPopularityTracker.Window window, int limit) {
+        List<Product> popular = new ArrayList<>(
+                productService.getProductsByIds(popularityTracker.getTopProductIds(window, limit)));
+        if (popular.size() < limit) {
+            Set<Long> seen = popular.stream().map(Product::getId).collect(Collectors.toSet());
+            for (Product product : productService.getAllProducts(null, limit).getItems()) {
+                if (popular.size() >= limit) {
+                    break;
+                }
+                if (seen.add(product.getId())) {
+                    popular.add(product);
+                }
+            }
+        }
+        return popular;
     }
     
     /**
@@ -100,29 +112,8 @@ public class RecommendationService {
      */
     public List<Product> getFrequentlyBoughtTogether(Long productId, int limit) {
         try {
-            // Find orders containing this product
-            var orders = orderRepository.findAll().stream()
-                    .filter(order -> order.getItems().stream()
-                            .anyMatch(item -> item.getProduct().getId().equals(productId)))
-                    .collect(Collectors.toList());
-            
-            // Count product co-occurrences
-            Map<Long, Integer> productCounts = new HashMap<>();
-            for (var order : orders) {
-                order.getItems().stream()
-                        .map(item -> item.getProduct().getId())
-                        .filter(id -> !id.equals(productId))
-                        .forEach(id -> productCounts.merge(id, 1, Integer::sum));
-            }
-            
-            // Get top co-occurring products
-            return productCounts.entrySet().stream()
-                    .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
-                    .limit(limit)
-                    .map(entry -> productRepository.findById(entry.getKey()).orElse(null))
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-                    
+            // Top co-occurring products are precomputed; fetch them in one batch
+            return productService.getProductsByIds(coPurchaseIndex.getTopNeighbors(productId, limit));
         } catch (Exception e) {
             log.error("Error finding frequently bought together for product {}", productId, e);
             return Collections.emptyList();
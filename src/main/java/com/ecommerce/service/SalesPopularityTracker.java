@@ -0,0 +1,229 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.OrderCancelledEvent;
+import com.ecommerce.event.OrderCreatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Units sold per product over rolling windows. Sales land in time buckets of
+ * striped {@link LongAdder} counters, so concurrent checkouts never contend on a
+ * lock. A cancelled order is subtracted from the buckets it was counted in. A
+ * scheduled pass folds the buckets into a ranked top-K per window, which is what
+ * requests read.
+ */
+@Component
+@Slf4j
+public class SalesPopularityTracker {
+    
+    private static final long MINUTE_MILLIS = Duration.ofMinutes(1).toMillis();
+    private static final long HOUR_MILLIS = Duration.ofHours(1).toMillis();
+    private static final long[] EMPTY = new long[0];
+    
+    public enum Window {
+        LAST_HOUR("1h"), LAST_DAY("24h"), LAST_WEEK("7d");
+        
+        private final String label;
+        
+        Window(String label) {
+            this.label = label;
+        }
+        
+        public static Window parse(String label) {
+            for (Window window : values()) {
+                if (window.label.equalsIgnoreCase(label)) {
+                    return window;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported popularity window: " + label);
+        }
+    }
+    
+    // One hour in minutes for the 1h window, one week in hours for 24h and 7d
+    private final BucketRing minutes = new BucketRing(MINUTE_MILLIS, 60);
+    private final BucketRing hours = new BucketRing(HOUR_MILLIS, 24 * 7);
+    private volatile Map<Window, long[]> topProducts;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final int topK;
+    
+    public SalesPopularityTracker(JdbcTemplate jdbcTemplate,
+                                  @Value("${recommendation.popular.top-k:100}") int topK) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.topK = topK;
+        Map<Window, long[]> empty = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            empty.put(window, EMPTY);
+        }
+        this.topProducts = empty;
+    }
+    
+    /**
+     * Replay the last week of sales so rankings survive a restart
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRecentSales() {
+        long since = System.currentTimeMillis() - hours.span();
+        long[] rows = {0};
+        jdbcTemplate.query(
+                "SELECT oi.product_id, oi.quantity, o.created_at FROM order_items oi "
+                + "JOIN orders o ON o.id = oi.order_id "
+                + "WHERE o.created_at >= ? AND o.status <> 'CANCELLED'",
+                rs -> {
+                    record(rs.getLong(1), rs.getInt(2), rs.getTimestamp(3).getTime());
+                    rows[0]++;
+                },
+                new Timestamp(since));
+        refreshRankings();
+        log.info("Popularity tracker loaded {} order lines from the last week", rows[0]);
+    }
+    
+    @TransactionalEventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        long timestamp = toEpochMillis(event.getCreatedAt());
+        for (OrderCreatedEvent.Line line : event.getLines()) {
+            record(line.getProductId(), line.getQuantity(), timestamp);
+        }
+    }
+    
+    /**
+     * Take a cancelled or deleted order back out, as the startup replay would not
+     * count it
+     */
+    @TransactionalEventListener
+    public void onOrderCancelled(OrderCancelledEvent event) {
+        long timestamp = toEpochMillis(event.getCreatedAt());
+        for (OrderCreatedEvent.Line line : event.getLines()) {
+            record(line.getProductId(), -line.getQuantity(), timestamp);
+        }
+    }
+    
+    /**
+     * Best-selling product ids of the window, most units first
+     */
+    public long[] getTopProductIds(Window window, int limit) {
+        long[] ranked = topProducts.get(window);
+        return ranked.length <= limit ? ranked : Arrays.copyOf(ranked, limit);
+    }
+    
+    @Scheduled(fixedDelayString = "${recommendation.popular.refresh-interval:PT10S}")
+    public void refreshRankings() {
+        long now = System.currentTimeMillis();
+        Map<Window, long[]> refreshed = new EnumMap<>(Window.class);
+        refreshed.put(Window.LAST_HOUR, rank(minutes.sum(now, 60)));
+        refreshed.put(Window.LAST_DAY, rank(hours.sum(now, 24)));
+        refreshed.put(Window.LAST_WEEK, rank(hours.sum(now, 24 * 7)));
+        topProducts = refreshed;
+    }
+    
+    private void record(long productId, int quantity, long timestamp) {
+        minutes.add(productId, quantity, timestamp);
+        hours.add(productId, quantity, timestamp);
+    }
+    
+    /**
+     * Top-K ids by units using a bounded min-heap, O(n log K)
+     */
+    private long[] rank(Map<Long, Long> units) {
+        PriorityQueue<Map.Entry<Long, Long>> heap = new PriorityQueue<>(topK + 1,
+                Map.Entry.<Long, Long>comparingByValue()
+                        .thenComparing(Map.Entry.<Long, Long>comparingByKey().reversed()));
+        for (Map.Entry<Long, Long> entry : units.entrySet()) {
+            // Every sale in the window was cancelled
+            if (entry.getValue() <= 0) {
+                continue;
+            }
+            heap.offer(entry);
+            if (heap.size() > topK) {
+                heap.poll();
+            }
+        }
+        long[] ranked = new long[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = heap.poll().getKey();
+        }
+        return ranked;
+    }
+    
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return System.currentTimeMillis();
+        }
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    /**
+     * Fixed number of consecutive time buckets; a slot is reset lazily when a
+     * newer period claims it
+     */
+    private static final class BucketRing {
+        private final long width;
+        private final AtomicReferenceArray<Bucket> slots;
+        
+        private BucketRing(long width, int count) {
+            this.width = width;
+            this.slots = new AtomicReferenceArray<>(count);
+        }
+        
+        private long span() {
+            return width * slots.length();
+        }
+        
+        private void add(long productId, int quantity, long timestamp) {
+            long period = timestamp / width;
+            long currentPeriod = System.currentTimeMillis() / width;
+            if (period <= currentPeriod - slots.length()) {
+                return;
+            }
+            int slot = (int) (period % slots.length());
+            Bucket bucket = slots.get(slot);
+            while (bucket == null || bucket.period < period) {
+                Bucket fresh = new Bucket(period);
+                if (slots.compareAndSet(slot, bucket, fresh)) {
+                    bucket = fresh;
+                } else {
+                    bucket = slots.get(slot);
+                }
+            }
+            if (bucket.period == period) {
+                bucket.units.computeIfAbsent(productId, id -> new LongAdder()).add(quantity);
+            }
+        }
+        
+        private Map<Long, Long> sum(long now, int periods) {
+            long currentPeriod = now / width;
+            Map<Long, Long> totals = new HashMap<>();
+            for (int i = 0; i < slots.length(); i++) {
+                Bucket bucket = slots.get(i);
+                if (bucket != null && bucket.period > currentPeriod - periods && bucket.period <= currentPeriod) {
+                    bucket.units.forEach((productId, adder) -> totals.merge(productId, adder.sum(), Long::sum));
+                }
+            }
+            return totals;
+        }
+    }
+    
+    private static final class Bucket {
+        private final long period;
+        private final ConcurrentHashMap<Long, LongAdder> units = new ConcurrentHashMap<>();
+        
+        private Bucket(long period) {
+            this.period = period;
+        }
+    }
+}
\ No newline at end of file
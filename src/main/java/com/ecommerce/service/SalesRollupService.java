@@ -0,0 +1,385 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CategorySales;
+import com.ecommerce.dto.ProductSales;
+import com.ecommerce.dto.SalesSummary;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.SalesRollup;
+import com.ecommerce.pricing.Money;
+import com.ecommerce.repository.ProductSalesRollupRepository;
+import com.ecommerce.repository.SalesRollupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Hourly and daily sales totals kept in {@code sales_rollups} (per period) and
+ * {@code product_sales_rollups} (per period and product). Placing an order adds
+ * its totals; cancelling or deleting it subtracts them from the periods it was
+ * placed in. The changes are inserted into {@code sales_rollup_deltas} in the
+ * order's own transaction, so they commit or roll back with it and survive a
+ * crash, and a periodic flush folds them into the rollups as upsert increments.
+ * Checkouts never wait on the shared period rows. Analytics reads only these
+ * tables, never raw orders, and lags by up to the flush interval.
+ */
+@Service
+@Slf4j
+public class SalesRollupService {
+    
+    private static final String UPSERT_PERIOD =
+            "INSERT INTO sales_rollups (granularity, period_start, order_count, units, revenue_cents) "
+            + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), "
+            + "units = units + VALUES(units), revenue_cents = revenue_cents + VALUES(revenue_cents)";
+    
+    private static final String UPSERT_PRODUCT =
+            "INSERT INTO product_sales_rollups (granularity, period_start, product_id, category, units, revenue_cents) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE units = units + VALUES(units), "
+            + "revenue_cents = revenue_cents + VALUES(revenue_cents)";
+    
+    private static final String INSERT_DELTA =
+            "INSERT INTO sales_rollup_deltas (granularity, period_start, product_id, category, order_count, units, "
+            + "revenue_cents) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    // Locked, so instances flushing at the same time never fold the same row twice
+    private static final String SELECT_DELTAS =
+            "SELECT id, granularity, period_start, product_id, category, order_count, units, revenue_cents "
+            + "FROM sales_rollup_deltas ORDER BY id LIMIT ? FOR UPDATE";
+    
+    private static final int FLUSH_BATCH_ROWS = 10_000;
+    
+    // Hot and archived orders for the backfill
+    private static final String ORDERS = "(SELECT id, status, total_amount, created_at FROM orders "
+            + "UNION ALL SELECT id, status, total_amount, created_at FROM orders_archive)";
+    private static final String ORDER_ITEMS = "(SELECT order_id, product_id, quantity, price FROM order_items "
+            + "UNION ALL SELECT order_id, product_id, quantity, price FROM order_items_archive)";
+    
+    private static final Map<SalesRollup.Granularity, String> PERIOD_FORMATS = Map.of(
+            SalesRollup.Granularity.HOUR, "'%Y-%m-%d %H:00:00'",
+            SalesRollup.Granularity.DAY, "'%Y-%m-%d 00:00:00'");
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final SalesRollupRepository salesRollupRepository;
+    private final ProductSalesRollupRepository productSalesRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration hourlyRetention;
+    private final Duration defaultRange;
+    
+    public SalesRollupService(JdbcTemplate jdbcTemplate,
+                              SalesRollupRepository salesRollupRepository,
+                              ProductSalesRollupRepository productSalesRollupRepository,
+                              PlatformTransactionManager transactionManager,
+                              // Only injected so the rollup, delta and archive tables exist before the backfill runs
+                              EntityManagerFactory entityManagerFactory,
+                              OrderArchiveService orderArchiveService,
+                              @Value("${analytics.rollup.hourly-retention:90d}") Duration hourlyRetention,
+                              @Value("${analytics.default-range:30d}") Duration defaultRange) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.salesRollupRepository = salesRollupRepository;
+        this.productSalesRollupRepository = productSalesRollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hourlyRetention = hourlyRetention;
+        this.defaultRange = defaultRange;
+    }
+    
+    /**
+     * Build the rollups from the existing orders, archived ones included, once,
+     * when the tables are still empty. Runs before the scheduler and the web
+     * server start. Of instances starting together on empty tables, the first to
+     * commit wins; the others fail on the unique keys, roll back and carry on.
+     */
+    @PostConstruct
+    public void backfill() {
+        if (salesRollupRepository.count() > 0) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            transactionTemplate.executeWithoutResult(status -> backfillFromOrders());
+        } catch (DuplicateKeyException e) {
+            log.info("Sales rollups were backfilled by another instance");
+            return;
+        }
+        log.info("Sales rollups backfilled in {} ms", System.currentTimeMillis() - started);
+    }
+    
+    private void backfillFromOrders() {
+        for (Map.Entry<SalesRollup.Granularity, String> entry : PERIOD_FORMATS.entrySet()) {
+            String period = "DATE_FORMAT(o.created_at, " + entry.getValue() + ")";
+            jdbcTemplate.update("INSERT INTO sales_rollups (granularity, period_start, order_count, units, revenue_cents) "
+                    + "SELECT ?, " + period + ", COUNT(*), SUM(u.units), SUM(ROUND(o.total_amount * 100)) "
+                    + "FROM " + ORDERS + " o JOIN (SELECT order_id, SUM(quantity) AS units FROM " + ORDER_ITEMS
+                    + " i GROUP BY order_id) u ON u.order_id = o.id WHERE o.status <> 'CANCELLED' GROUP BY " + period,
+                    entry.getKey().name());
+            jdbcTemplate.update("INSERT INTO product_sales_rollups "
+                    + "(granularity, period_start, product_id, category, units, revenue_cents) "
+                    + "SELECT ?, " + period + ", oi.product_id, MAX(p.category), SUM(oi.quantity), "
+                    + "SUM(ROUND(oi.price * 100) * oi.quantity) "
+                    + "FROM " + ORDER_ITEMS + " oi JOIN " + ORDERS + " o ON o.id = oi.order_id "
+                    + "JOIN products p ON p.id = oi.product_id WHERE o.status <> 'CANCELLED' GROUP BY " + period + ", oi.product_id",
+                    entry.getKey().name());
+        }
+    }
+    
+    /**
+     * Add a newly placed order, as part of the current transaction
+     */
+    public void recordPlaced(Order order) {
+        record(List.of(order), 1);
+    }
+    
+    /**
+     * Subtract cancelled or deleted orders from the periods they were placed in,
+     * as part of the current transaction
+     */
+    public void recordRemoved(Collection<Order> orders) {
+        record(orders, -1);
+    }
+    
+    /**
+     * Fold the queued deltas into the rollups, one transaction per batch. A
+     * failed batch rolls back and stays queued for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${analytics.rollup.flush-interval:PT5S}")
+    @PreDestroy
+    public void flush() {
+        try {
+            Integer drained;
+            do {
+                drained = transactionTemplate.execute(status -> drain());
+            } while (drained != null && drained == FLUSH_BATCH_ROWS);
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush sales rollups, keeping them for the next flush", e);
+        }
+    }
+    
+    public SalesSummary getSummary(LocalDateTime from, LocalDateTime to, SalesRollup.Granularity granularity) {
+        Range range = resolve(from, to, granularity);
+        List<SalesRollup> rollups = salesRollupRepository
+                .findByGranularityAndPeriodStartGreaterThanEqualAndPeriodStartLessThanOrderByPeriodStartAsc(
+                        range.granularity(), range.start(), range.end());
+        
+        long orderCount = 0;
+        long units = 0;
+        long revenueCents = 0;
+        List<SalesSummary.Period> periods = new ArrayList<>(rollups.size());
+        for (SalesRollup rollup : rollups) {
+            orderCount += rollup.getOrderCount();
+            units += rollup.getUnits();
+            revenueCents += rollup.getRevenueCents();
+            periods.add(SalesSummary.Period.builder()
+                    .start(rollup.getPeriodStart())
+                    .orderCount(rollup.getOrderCount())
+                    .units(rollup.getUnits())
+                    .revenue(Money.toAmount(rollup.getRevenueCents()))
+                    .build());
+        }
+        return SalesSummary.builder()
+                .from(range.start())
+                .to(range.end())
+                .granularity(range.granularity().name())
+                .orderCount(orderCount)
+                .units(units)
+                .revenue(Money.toAmount(revenueCents))
+                .averageOrderValue(orderCount == 0 ? 0 : Money.toAmount(Math.round((double) revenueCents / orderCount)))
+                .periods(periods)
+                .build();
+    }
+    
+    public List<ProductSales> getTopProducts(LocalDateTime from, LocalDateTime to, int limit, boolean byRevenue) {
+        Range range = resolve(from, to, null);
+        PageRequest page = PageRequest.of(0, limit);
+        return byRevenue
+                ? productSalesRollupRepository.findTopProductsByRevenue(range.granularity(), range.start(), range.end(), page)
+                : productSalesRollupRepository.findTopProductsByUnits(range.granularity(), range.start(), range.end(), page);
+    }
+    
+    public List<CategorySales> getSalesByCategory(LocalDateTime from, LocalDateTime to) {
+        Range range = resolve(from, to, null);
+        return productSalesRollupRepository.sumByCategory(range.granularity(), range.start(), range.end());
+    }
+    
+    /**
+     * Drop hourly rows past their retention; the daily rows are kept
+     */
+    @Scheduled(cron = "${analytics.rollup.purge-cron:0 15 3 * * *}")
+    public void purgeHourlyRollups() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(hourlyRetention).truncatedTo(ChronoUnit.DAYS));
+        int periods = jdbcTemplate.update("DELETE FROM sales_rollups WHERE granularity = 'HOUR' AND period_start < ?", cutoff);
+        int products = jdbcTemplate.update(
+                "DELETE FROM product_sales_rollups WHERE granularity = 'HOUR' AND period_start < ?", cutoff);
+        if (periods + products > 0) {
+            log.info("Purged {} hourly sales rollups and {} hourly product rollups before {}", periods, products, cutoff);
+        }
+    }
+    
+    private void record(Collection<Order> orders, int sign) {
+        Deltas deltas = new Deltas();
+        for (Order order : orders) {
+            deltas.add(order, sign);
+        }
+        if (!deltas.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_DELTA, deltas.rows());
+        }
+    }
+    
+    private int drain() {
+        Deltas batch = new Deltas();
+        List<Object[]> ids = new ArrayList<>();
+        jdbcTemplate.query(SELECT_DELTAS, rs -> {
+            ids.add(new Object[] { rs.getLong(1) });
+            SalesRollup.Granularity granularity = SalesRollup.Granularity.valueOf(rs.getString(2));
+            LocalDateTime periodStart = rs.getTimestamp(3).toLocalDateTime();
+            long productId = rs.getLong(4);
+            if (rs.wasNull()) {
+                batch.addPeriod(granularity, periodStart, rs.getLong(6), rs.getLong(7), rs.getLong(8));
+            } else {
+                batch.addProduct(granularity, periodStart, productId, rs.getString(5), rs.getLong(7), rs.getLong(8));
+            }
+        }, FLUSH_BATCH_ROWS);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        write(batch);
+        jdbcTemplate.batchUpdate("DELETE FROM sales_rollup_deltas WHERE id = ?", ids);
+        return ids.size();
+    }
+    
+    private void write(Deltas deltas) {
+        // Sorted keys so the rows are always locked in the same order
+        List<Object[]> periodRows = new ArrayList<>();
+        deltas.periods.forEach((granularity, byPeriod) -> byPeriod.forEach((periodStart, totals) ->
+                periodRows.add(new Object[] {
+                        granularity.name(), Timestamp.valueOf(periodStart), totals[0], totals[1], totals[2] })));
+        List<Object[]> productRows = new ArrayList<>();
+        deltas.products.forEach((granularity, byPeriod) -> byPeriod.forEach((periodStart, byProduct) ->
+                byProduct.forEach((productId, delta) -> productRows.add(new Object[] {
+                        granularity.name(), Timestamp.valueOf(periodStart), productId, delta.category,
+                        delta.units, delta.revenueCents }))));
+        if (!periodRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_PERIOD, periodRows);
+        }
+        if (!productRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_PRODUCT, productRows);
+        }
+    }
+    
+    private static LocalDateTime periodStart(LocalDateTime createdAt, SalesRollup.Granularity granularity) {
+        LocalDateTime at = createdAt != null ? createdAt : LocalDateTime.now();
+        return at.truncatedTo(granularity == SalesRollup.Granularity.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+    }
+    
+    /**
+     * Daily rows answer day-aligned ranges; anything finer needs the hourly rows.
+     * Hourly rows are purged after the retention, so a range starting before it
+     * is widened to whole days and answered from the daily rows.
+     */
+    Range resolve(LocalDateTime from, LocalDateTime to, SalesRollup.Granularity requested) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).plusDays(1);
+        LocalDateTime start = from != null ? from : end.minus(defaultRange);
+        boolean dayAligned = start.equals(start.truncatedTo(ChronoUnit.DAYS)) && end.equals(end.truncatedTo(ChronoUnit.DAYS));
+        SalesRollup.Granularity granularity = requested != null ? requested
+                : dayAligned ? SalesRollup.Granularity.DAY : SalesRollup.Granularity.HOUR;
+        LocalDateTime hourlyCutoff = LocalDateTime.now().minus(hourlyRetention).truncatedTo(ChronoUnit.DAYS);
+        if (granularity == SalesRollup.Granularity.HOUR && start.isBefore(hourlyCutoff)) {
+            granularity = SalesRollup.Granularity.DAY;
+        }
+        if (granularity == SalesRollup.Granularity.DAY && !dayAligned) {
+            start = start.truncatedTo(ChronoUnit.DAYS);
+            LocalDateTime endDay = end.truncatedTo(ChronoUnit.DAYS);
+            end = endDay.equals(end) ? end : endDay.plusDays(1);
+        }
+        return new Range(start, end, granularity);
+    }
+    
+    record Range(LocalDateTime start, LocalDateTime end, SalesRollup.Granularity granularity) {
+    }
+    
+    /**
+     * Rollup changes per granularity and period, and per product within a period
+     */
+    private static final class Deltas {
+        private final Map<SalesRollup.Granularity, TreeMap<LocalDateTime, long[]>> periods =
+                new EnumMap<>(SalesRollup.Granularity.class);
+        private final Map<SalesRollup.Granularity, TreeMap<LocalDateTime, TreeMap<Long, ProductDelta>>> products =
+                new EnumMap<>(SalesRollup.Granularity.class);
+        
+        private void add(Order order, int sign) {
+            long units = 0;
+            for (OrderItem item : order.getItems()) {
+                units += item.getQuantity();
+            }
+            long revenueCents = Money.toCents(order.getTotalAmount());
+            for (SalesRollup.Granularity granularity : SalesRollup.Granularity.values()) {
+                LocalDateTime periodStart = periodStart(order.getCreatedAt(), granularity);
+                addPeriod(granularity, periodStart, sign, sign * units, sign * revenueCents);
+                for (OrderItem item : order.getItems()) {
+                    addProduct(granularity, periodStart, item.getProduct().getId(), item.getProduct().getCategory(),
+                            sign * item.getQuantity(), sign * Money.toCents(item.getPrice()) * item.getQuantity());
+                }
+            }
+        }
+        
+        /**
+         * Rows for {@code sales_rollup_deltas}; period totals have no product
+         */
+        private List<Object[]> rows() {
+            List<Object[]> rows = new ArrayList<>();
+            periods.forEach((granularity, byPeriod) -> byPeriod.forEach((periodStart, totals) ->
+                    rows.add(new Object[] { granularity.name(), Timestamp.valueOf(periodStart), null, null,
+                            totals[0], totals[1], totals[2] })));
+            products.forEach((granularity, byPeriod) -> byPeriod.forEach((periodStart, byProduct) ->
+                    byProduct.forEach((productId, delta) -> rows.add(new Object[] { granularity.name(),
+                            Timestamp.valueOf(periodStart), productId, delta.category, 0L, delta.units,
+                            delta.revenueCents }))));
+            return rows;
+        }
+        
+        private void addPeriod(SalesRollup.Granularity granularity, LocalDateTime periodStart,
+                               long orderCount, long units, long revenueCents) {
+            long[] totals = periods.computeIfAbsent(granularity, g -> new TreeMap<>())
+                    .computeIfAbsent(periodStart, p -> new long[3]);
+            totals[0] += orderCount;
+            totals[1] += units;
+            totals[2] += revenueCents;
+        }
+        
+        private void addProduct(SalesRollup.Granularity granularity, LocalDateTime periodStart, Long productId,
+                                String category, long units, long revenueCents) {
+            ProductDelta delta = products.computeIfAbsent(granularity, g -> new TreeMap<>())
+                    .computeIfAbsent(periodStart, p -> new TreeMap<>())
+                    .computeIfAbsent(productId, id -> new ProductDelta(category));
+            delta.units += units;
+            delta.revenueCents += revenueCents;
+        }
+        
+        private boolean isEmpty() {
+            return periods.isEmpty() && products.isEmpty();
+        }
+    }
+    
+    private static final class ProductDelta {
+        private final String category;
+        private long units;
+        private long revenueCents;
+        
+        private ProductDelta(String category) {
+            this.category = category;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,323 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.AsyncConfig;
+import com.ecommerce.config.NotificationExecutor;
+import com.ecommerce.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Queue in front of the SMS provider. Messages leave in priority order
+ * (transactional before marketing, then first come first served) and only as
+ * fast as a token bucket per provider and sender number allows, so bursts are
+ * smoothed out instead of being answered with 429s. Each sender has its own
+ * queue, so one that is rate limited or throttled does not hold up the others.
+ * A message queued under the
+ * same coalescing key as one still waiting replaces it, so a burst of status
+ * updates sends only the latest.
+ */
+@Component
+@Slf4j
+public class SmsDispatcher implements MetricsSource {
+    
+    public enum Priority {
+        TRANSACTIONAL, MARKETING
+    }
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private static final Comparator<Pending> ORDER =
+            Comparator.comparing((Pending p) -> p.priority).thenComparingLong(p -> p.sequence);
+    
+    private final Map<String, PriorityQueue<Pending>> queues = new HashMap<>();
+    private int queued;
+    private final Map<String, Pending> byCoalescingKey = new HashMap<>();
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private long nextSequence;
+    
+    private final NotificationExecutor smsExecutor;
+    private final NotificationJournal journal;
+    private final String provider;
+    private final double messagesPerSecond;
+    private final int burst;
+    private final Duration throttledPause;
+    
+    private Thread dispatcher;
+    private volatile boolean running;
+    
+    private final Map<Priority, LongAdder> dispatched = new EnumMap<>(Priority.class);
+    private final Map<Priority, LongAdder> queueWaitNanos = new EnumMap<>(Priority.class);
+    private final Map<Priority, LongAccumulator> maxQueueWaitNanos = new EnumMap<>(Priority.class);
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rateLimitWaitNanos = new LongAdder();
+    private final LongAdder throttledByProvider = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    
+    public SmsDispatcher(@Qualifier(AsyncConfig.SMS_EXECUTOR) NotificationExecutor smsExecutor,
+                         NotificationJournal journal,
+                         @Value("${sms.provider:twilio}") String provider,
+                         @Value("${sms.rate-limit.messages-per-second:1}") double messagesPerSecond,
+                         @Value("${sms.rate-limit.burst:5}") int burst,
+                         @Value("${sms.rate-limit.throttled-pause:5s}") Duration throttledPause) {
+        this.smsExecutor = smsExecutor;
+        this.journal = journal;
+        this.provider = provider;
+        this.messagesPerSecond = messagesPerSecond;
+        this.burst = burst;
+        this.throttledPause = throttledPause;
+        for (Priority priority : Priority.values()) {
+            dispatched.put(priority, new LongAdder());
+            queueWaitNanos.put(priority, new LongAdder());
+            maxQueueWaitNanos.put(priority, new LongAccumulator(Long::max, 0));
+        }
+    }
+    
+    @PostConstruct
+    public void start() {
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "sms-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+    
+    /**
+     * Whatever is still queued stays open in the journal and is retried after
+     * the restart
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(5_000);
+    }
+    
+    /**
+     * Queue a journaled message for {@code send} once the sender's rate allows.
+     * With a coalescing key, a message still queued under that key is dropped in
+     * favour of this one.
+     */
+    public void submit(Priority priority, String coalescingKey, String from, NotificationJournal.Entry entry,
+                       Consumer<NotificationJournal.Entry> send) {
+        NotificationJournal.Entry superseded = null;
+        lock.lock();
+        try {
+            Pending pending = new Pending(priority, coalescingKey, from, entry, send, nextSequence++);
+            if (coalescingKey != null) {
+                Pending previous = byCoalescingKey.put(coalescingKey, pending);
+                if (previous != null && dequeue(previous)) {
+                    superseded = previous.entry;
+                    // Keep the place in line of the first message of the burst
+                    pending.sequence = previous.sequence;
+                    pending.enqueuedAt = previous.enqueuedAt;
+                }
+            }
+            queues.computeIfAbsent(from, key -> new PriorityQueue<>(ORDER)).add(pending);
+            queued++;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (superseded != null) {
+            coalesced.increment();
+            journal.discard(superseded);
+        }
+    }
+    
+    /**
+     * The provider answered 429: hold the sender back for a while on top of the
+     * bucket's own pacing
+     */
+    public void throttled(String from) {
+        throttledByProvider.increment();
+        bucket(from).pause(throttledPause.toNanos());
+    }
+    
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                Pending next = awaitNext();
+                if (next == null) {
+                    continue;
+                }
+                long waited = System.nanoTime() - next.enqueuedAt;
+                queueWaitNanos.get(next.priority).add(waited);
+                maxQueueWaitNanos.get(next.priority).accumulate(waited);
+                dispatched.get(next.priority).increment();
+                try {
+                    smsExecutor.execute(() -> next.send.accept(next.entry));
+                } catch (TaskRejectedException e) {
+                    rejected.increment();
+                    journal.failed(next.entry, e);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("SMS dispatcher failed", e);
+            }
+        }
+    }
+    
+    /**
+     * Take the first message, in priority order, whose sender has a token, or
+     * wait until the earliest sender gets one. A message arriving meanwhile is
+     * considered first.
+     */
+    private Pending awaitNext() throws InterruptedException {
+        lock.lock();
+        try {
+            while (queued == 0) {
+                if (!changed.await(1, TimeUnit.SECONDS)) {
+                    return null;
+                }
+            }
+            List<PriorityQueue<Pending>> senders = new ArrayList<>(queues.values());
+            senders.sort(Comparator.comparing(PriorityQueue::peek, ORDER));
+            long waitNanos = Long.MAX_VALUE;
+            for (PriorityQueue<Pending> sender : senders) {
+                Pending head = sender.peek();
+                long wait = bucket(head.from).tryAcquire();
+                if (wait == 0) {
+                    dequeue(head);
+                    if (head.coalescingKey != null) {
+                        byCoalescingKey.remove(head.coalescingKey, head);
+                    }
+                    return head;
+                }
+                waitNanos = Math.min(waitNanos, wait);
+            }
+            long started = System.nanoTime();
+            changed.awaitNanos(waitNanos);
+            rateLimitWaitNanos.add(System.nanoTime() - started);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Remove a queued message, dropping its sender's queue once empty so every
+     * queue left has a head. Called with the lock held.
+     */
+    private boolean dequeue(Pending pending) {
+        PriorityQueue<Pending> sender = queues.get(pending.from);
+        if (sender == null || !sender.remove(pending)) {
+            return false;
+        }
+        if (sender.isEmpty()) {
+            queues.remove(pending.from);
+        }
+        queued--;
+        return true;
+    }
+    
+    private TokenBucket bucket(String from) {
+        return buckets.computeIfAbsent(provider + ":" + from, key -> new TokenBucket(messagesPerSecond, burst));
+    }
+    
+    @Override
+    public String getMetricsName() {
+        return "smsDispatcher";
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            metrics.put("queued", queued);
+        } finally {
+            lock.unlock();
+        }
+        metrics.put("messagesPerSecond", messagesPerSecond);
+        metrics.put("burst", burst);
+        metrics.put("senders", buckets.size());
+        metrics.put("coalesced", coalesced.sum());
+        metrics.put("throttledByProvider", throttledByProvider.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("rateLimitWaitMillis", rateLimitWaitNanos.sum() / 1_000_000);
+        for (Priority priority : Priority.values()) {
+            String prefix = priority.name().toLowerCase(Locale.ROOT);
+            long count = dispatched.get(priority).sum();
+            metrics.put(prefix + "Dispatched", count);
+            metrics.put(prefix + "AvgQueueWaitMillis", count == 0 ? 0 : queueWaitNanos.get(priority).sum() / count / 1_000_000.0);
+            metrics.put(prefix + "MaxQueueWaitMillis", maxQueueWaitNanos.get(priority).get() / 1_000_000.0);
+        }
+        return metrics;
+    }
+    
+    private static final class Pending {
+        private final Priority priority;
+        private final String coalescingKey;
+        private final String from;
+        private final NotificationJournal.Entry entry;
+        private final Consumer<NotificationJournal.Entry> send;
+        private long sequence;
+        private long enqueuedAt = System.nanoTime();
+        
+        private Pending(Priority priority, String coalescingKey, String from, NotificationJournal.Entry entry,
+                        Consumer<NotificationJournal.Entry> send, long sequence) {
+            this.priority = priority;
+            this.coalescingKey = coalescingKey;
+            this.from = from;
+            this.entry = entry;
+            this.send = send;
+            this.sequence = sequence;
+        }
+    }
+    
+    /**
+     * {@code rate} tokens per second up to {@code capacity}. Synchronized, as a
+     * 429 pauses it from a sender thread.
+     */
+    static final class TokenBucket {
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private long pausedUntil = System.nanoTime();
+        
+        TokenBucket(double rate, int capacity) {
+            this.tokensPerNano = rate / 1e9;
+            this.capacity = Math.max(1, capacity);
+            this.tokens = this.capacity;
+        }
+        
+        /**
+         * Take a token and return 0, or return the nanos until one is available
+         */
+        synchronized long tryAcquire() {
+            long now = System.nanoTime();
+            if (now - pausedUntil < 0) {
+                return pausedUntil - now;
+            }
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+        }
+        
+        synchronized void pause(long nanos) {
+            pausedUntil = System.nanoTime() + nanos;
+            tokens = 0;
+        }
+    }
+}
\ No newline at end of file
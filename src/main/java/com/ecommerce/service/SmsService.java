@@ -5,10 +5,14 @@ import com.ecommerce.model.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * Messages are journaled on the caller's thread and then queued on the
+ * {@link SmsDispatcher}, which sends them from the SMS executor
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -24,8 +28,9 @@ public class SmsService {
     private String fromNumber;
     
     private final RestTemplate restTemplate = new RestTemplate();
+    private final NotificationJournal journal;
+    private final SmsDispatcher dispatcher;
     
-    @Async
     public void sendOrderConfirmationSms(User user, Order order) {
         if (user.getPhone() == null || user.getPhone().isEmpty()) {
             log.warn("User {} has no phone number", user.getId());
@@ -38,11 +43,10 @@ public class SmsService {
             order.getTotalAmount()
         );
         
-        sendSms(user.getPhone(), message);
+        sendSms(user.getPhone(), message, SmsDispatcher.Priority.TRANSACTIONAL, null);
     }
     
-    @Async
-    public void sendOrderStatusUpdateSms(User user, Order order) {
+    public void sendOrderStatusUpdateSms(User user, Order order, Order.OrderStatus status) {
         if (user.getPhone() == null || user.getPhone().isEmpty()) {
             log.warn("User {} has no phone number", user.getId());
             return;
@@ -51,13 +55,14 @@ public class SmsService {
         String message = String.format(
             "Order #%d status updated to: %s. Track your order at http://localhost:3000/orders",
             order.getId(),
-            order.getStatus()
+            status
         );
         
-        sendSms(user.getPhone(), message);
+        // Only the latest status of an order is worth a message if several queue up
+        sendSms(user.getPhone(), message, SmsDispatcher.Priority.TRANSACTIONAL,
+                "status:" + user.getId() + ":" + order.getId());
     }
     
-    @Async
     public void sendWelcomeSms(User user) {
         if (user.getPhone() == null || user.getPhone().isEmpty()) {
             log.warn("User {} has no phone number", user.getId());
@@ -69,34 +74,57 @@ public class SmsService {
             user.getName()
         );
         
-        sendSms(user.getPhone(), message);
+        sendSms(user.getPhone(), message, SmsDispatcher.Priority.MARKETING, null);
     }
     
-    private void sendSms(String toNumber, String message) {
+    /**
+     * Another attempt at a journaled SMS, from {@link NotificationRetrier}
+     */
+    public void redeliver(NotificationJournal.Entry entry) {
+        // Entries journaled before the priority was kept are retried ahead of marketing, as before
+        SmsDispatcher.Priority priority = entry.getPriority() == null
+                ? SmsDispatcher.Priority.TRANSACTIONAL : SmsDispatcher.Priority.valueOf(entry.getPriority());
+        dispatcher.submit(priority, entry.getCoalescingKey(), fromNumber, entry, this::deliver);
+    }
+    
+    private void sendSms(String toNumber, String message, SmsDispatcher.Priority priority, String coalescingKey) {
+        NotificationJournal.Entry entry = journal.append(NotificationJournal.Channel.SMS, toNumber, null, message,
+                priority.name(), coalescingKey);
+        dispatcher.submit(priority, coalescingKey, fromNumber, entry, this::deliver);
+    }
+    
+    private void deliver(NotificationJournal.Entry entry) {
         try {
-            // Integration with Twilio, AWS SNS, or any SMS provider
-            // This is a placeholder implementation
-            log.info("SMS sent to {}: {}", toNumber, message);
-            
-            // Example Twilio integration (uncomment when configured):
-            /*
-            String url = "https://api.twilio.com/2010-04-01/Accounts/" + apiKey + "/Messages.json";
-            
-            MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-            params.add("From", fromNumber);
-            params.add("To", toNumber);
-            params.add("Body", message);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-            headers.setBasicAuth(apiKey, apiSecret);
-            
-            HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(params, headers);
-            restTemplate.postForEntity(url, request, String.class);
-            */
-            
+            transmit(entry.getRecipient(), entry.getBody());
+            journal.delivered(entry);
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            dispatcher.throttled(fromNumber);
+            journal.failed(entry, e);
         } catch (Exception e) {
-            log.error("Failed to send SMS to {}", toNumber, e);
+            journal.failed(entry, e);
         }
     }
+    
+    private void transmit(String toNumber, String message) {
+        // Integration with Twilio, AWS SNS, or any SMS provider
+        // This is a placeholder implementation
+        log.info("SMS sent to {}: {}", toNumber, message);
+        
+        // Example Twilio integration (uncomment when configured):
+        /*
+        String url = "https://api.twilio.com/2010-04-01/Accounts/" + apiKey + "/Messages.json";
+        
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("From", fromNumber);
+        params.add("To", toNumber);
+        params.add("Body", message);
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        headers.setBasicAuth(apiKey, apiSecret);
+        
+        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(params, headers);
+        restTemplate.postForEntity(url, request, String.class);
+        */
+    }
 }
\ No newline at end of file
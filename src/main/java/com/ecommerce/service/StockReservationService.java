@@ -0,0 +1,186 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.OrderCancelledEvent;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.OutboxEvent;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reserves stock for orders with single-statement conditional decrements, so
+ * concurrent checkouts never oversell and never hold a row lock longer than
+ * their own transaction. Rows are always touched in ascending product id order,
+ * which keeps two checkouts of overlapping baskets from deadlocking. Unpaid
+ * orders give their stock back after a TTL.
+ */
+@Service
+@Slf4j
+public class StockReservationService {
+    
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final ProductService productService;
+    private final OutboxService outboxService;
+    private final SalesRollupService salesRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration reservationTtl;
+    private final int sweepBatchSize;
+    
+    public StockReservationService(ProductRepository productRepository,
+                                   OrderRepository orderRepository,
+                                   ProductService productService,
+                                   OutboxService outboxService,
+                                   SalesRollupService salesRollupService,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${order.reservation.ttl:30m}") Duration reservationTtl,
+                                   @Value("${order.reservation.sweep-batch-size:100}") int sweepBatchSize) {
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.productService = productService;
+        this.outboxService = outboxService;
+        this.salesRollupService = salesRollupService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reservationTtl = reservationTtl;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+    
+    /**
+     * Take stock for the given order lines. Must run inside the order's
+     * transaction: a shortfall throws and rolls back the lines already taken.
+     */
+    @Transactional
+    public void reserve(Collection<OrderItem> items) {
+        Map<Long, Integer> quantities = quantitiesByProduct(items);
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            if (productRepository.decrementStock(entry.getKey(), entry.getValue()) == 0) {
+                throw new RuntimeException("Insufficient stock for product id: " + entry.getKey());
+            }
+        }
+        refreshAfterCommit(quantities.keySet());
+    }
+    
+    /**
+     * Give back the stock held by the order's lines
+     */
+    @Transactional
+    public void release(Order order) {
+        releaseQuantities(quantitiesByProduct(order.getItems()));
+    }
+    
+    /**
+     * Give back the stock of many orders with one increment per product
+     */
+    @Transactional
+    public void releaseOrders(Collection<Long> orderIds) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (Object[] row : orderRepository.sumQuantitiesByProduct(orderIds)) {
+            quantities.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        releaseQuantities(quantities);
+    }
+    
+    /**
+     * Cancel orders still unpaid after the reservation TTL, one transaction each
+     */
+    @Scheduled(fixedDelayString = "${order.reservation.sweep-interval:PT1M}")
+    public void expireUnpaidOrders() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(reservationTtl);
+        int expired = 0;
+        while (true) {
+            List<Long> orderIds = orderRepository.findUnpaidOrderIds(
+                    Order.OrderStatus.PENDING, cutoff, PageRequest.of(0, sweepBatchSize));
+            int cancelledInBatch = 0;
+            for (Long orderId : orderIds) {
+                try {
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(status -> expire(orderId)))) {
+                        cancelledInBatch++;
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Failed to expire reservation of order {}", orderId, e);
+                }
+            }
+            expired += cancelledInBatch;
+            // A short page, or one where nothing could be cancelled, means we are done
+            if (orderIds.size() < sweepBatchSize || cancelledInBatch == 0) {
+                break;
+            }
+        }
+        if (expired > 0) {
+            log.info("Cancelled {} unpaid orders older than {}", expired, reservationTtl);
+        }
+    }
+    
+    private boolean expire(Long orderId) {
+        // The status guard loses cleanly against a payment confirmed meanwhile
+        if (orderRepository.transitionStatus(orderId, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELLED) == 0) {
+            return false;
+        }
+        orderRepository.findById(orderId).ifPresent(order -> {
+            release(order);
+            salesRollupService.recordRemoved(List.of(order));
+            eventPublisher.publishEvent(OrderCancelledEvent.of(order));
+        });
+        outboxService.record(OutboxEvent.EventType.ORDER_STATUS_CHANGED, orderId,
+                Map.of("from", Order.OrderStatus.PENDING, "to", Order.OrderStatus.CANCELLED, "reason", "reservation expired"));
+        return true;
+    }
+    
+    private void releaseQuantities(Map<Long, Integer> quantities) {
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            productRepository.incrementStock(entry.getKey(), entry.getValue());
+        }
+        refreshAfterCommit(quantities.keySet());
+    }
+    
+    private static Map<Long, Integer> quantitiesByProduct(Collection<OrderItem> items) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : items) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+    
+    /**
+     * Push the new stock levels to the product cache and the search and catalog
+     * indexes once they are committed
+     */
+    private void refreshAfterCommit(Collection<Long> productIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            productService.refreshProducts(productIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    productService.refreshProducts(productIds);
+                } catch (RuntimeException e) {
+                    // The stock change is committed; the caller's request must not fail over the refresh
+                    log.warn("Failed to refresh products {} after a stock change", productIds, e);
+                }
+            }
+        });
+    }
+}
\ No newline at end of file
@@ -1,20 +1,24 @@
 package com.ecommerce.service;
 
+import com.ecommerce.config.PaginationProperties;
+import com.ecommerce.dto.CursorPage;
 import com.ecommerce.model.User;
 import com.ecommerce.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Service
 @RequiredArgsConstructor
 public class UserService {
     
     private final UserRepository userRepository;
+    private final PaginationProperties pagination;
     
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public CursorPage<User> getAllUsers(String cursor, Integer size) {
+        return CursorPage.of(
+                userRepository.findByIdGreaterThanOrderByIdAsc(
+                        CursorPage.decodeCursor(cursor), pagination.pageable(size)),
+                User::getId);
     }
     
     public User getUserById(Long id) {
@@ -0,0 +1,375 @@
+package com.ecommerce.service;
+
+import com.ecommerce.metrics.MetricsSource;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Active carts held in memory, keyed by user id. Mutations only touch the
+ * in-memory state and mark the cart dirty; a scheduled pass writes the latest
+ * contents of all dirty carts in batched transactions, so repeated edits of a
+ * cart between flushes cost a single write. Checkout empties the stored cart in
+ * its own transaction and the in-memory cart once that commits.
+ * <p>
+ * Cart item ids are the product ids in this mode.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.store.mode", havingValue = "write-behind")
+@Slf4j
+public class WriteBehindCartStore implements MetricsSource {
+    
+    private final ConcurrentHashMap<Long, CartState> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+    // Carts emptied by a transaction that has not completed yet; flushes skip them
+    private final Set<Long> pendingClears = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    
+    private final LongAdder mutations = new LongAdder();
+    private final LongAdder flushedCarts = new LongAdder();
+    private final LongAdder flushTransactions = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final UserService userService;
+    private final ProductService productService;
+    private final TransactionTemplate transactionTemplate;
+    private final int flushBatchSize;
+    private final long idleTimeoutMillis;
+    
+    public WriteBehindCartStore(CartRepository cartRepository,
+                                ProductRepository productRepository,
+                                UserService userService,
+                                ProductService productService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${cart.store.flush-batch-size:200}") int flushBatchSize,
+                                @Value("${cart.store.idle-timeout:30m}") Duration idleTimeout) {
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.userService = userService;
+        this.productService = productService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushBatchSize = flushBatchSize;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+    }
+    
+    public Cart getCart(Long userId) {
+        CartState state = state(userId);
+        long[] productIds;
+        Map<Long, Integer> quantities;
+        synchronized (state) {
+            state.touch();
+            quantities = new HashMap<>(state.items);
+            productIds = state.items.keySet().stream().mapToLong(Long::longValue).toArray();
+        }
+        
+        Cart cart = new Cart();
+        cart.setId(state.cartId);
+        cart.setUser(state.user);
+        for (Product product : productService.getProductsByIds(productIds)) {
+            cart.getItems().add(new CartItem(product.getId(), cart, product, quantities.get(product.getId())));
+        }
+        return cart;
+    }
+    
+    public Cart addItem(Long userId, Long productId, Integer quantity) {
+        productService.getProductById(productId);
+        mutate(userId, items -> items.merge(productId, quantity, Integer::sum));
+        return getCart(userId);
+    }
+    
+    public Cart updateItem(Long userId, Long productId, Integer quantity) {
+        mutate(userId, items -> {
+            if (!items.containsKey(productId)) {
+                throw new RuntimeException("Cart item not found");
+            }
+            if (quantity <= 0) {
+                items.remove(productId);
+            } else {
+                items.put(productId, quantity);
+            }
+        });
+        return getCart(userId);
+    }
+    
+    public Cart removeItem(Long userId, Long productId) {
+        mutate(userId, items -> {
+            if (items.remove(productId) == null) {
+                throw new RuntimeException("Cart item not found");
+            }
+        });
+        return getCart(userId);
+    }
+    
+    /**
+     * Empty the cart and write that through at once. Within a transaction
+     * (checkout) the stored cart is emptied as part of it and the in-memory cart
+     * only after it commits, so a rolled-back checkout keeps the cart.
+     */
+    public void clear(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            mutate(userId, Map::clear);
+            flushLock.lock();
+            try {
+                if (dirtyUsers.remove(userId)) {
+                    writeBatch(List.of(userId));
+                }
+            } finally {
+                flushLock.unlock();
+            }
+            return;
+        }
+        
+        CartState state = state(userId);
+        Map<Long, Long> createdCartIds;
+        // Waits for a running flush, and keeps later ones off this cart until the transaction completes
+        flushLock.lock();
+        try {
+            createdCartIds = writeSnapshots(Map.of(userId, state), Map.of(userId, Map.of()));
+            pendingClears.add(userId);
+        } finally {
+            flushLock.unlock();
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                synchronized (state) {
+                    state.items.clear();
+                    state.touch();
+                    dirtyUsers.remove(userId);
+                }
+                Long cartId = createdCartIds.get(userId);
+                if (cartId != null) {
+                    state.cartId = cartId;
+                }
+                mutations.increment();
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                pendingClears.remove(userId);
+            }
+        });
+    }
+    
+    @Scheduled(fixedDelayString = "${cart.store.flush-interval:PT5S}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Long> batch = new ArrayList<>(flushBatchSize);
+            for (Iterator<Long> it = dirtyUsers.iterator(); it.hasNext(); ) {
+                Long userId = it.next();
+                if (pendingClears.contains(userId)) {
+                    continue;
+                }
+                batch.add(userId);
+                it.remove();
+                if (batch.size() >= flushBatchSize) {
+                    writeBatch(batch);
+                    batch = new ArrayList<>(flushBatchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        evictIdle();
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        log.info("Flushed carts on shutdown");
+    }
+    
+    private void mutate(Long userId, Consumer<Map<Long, Integer>> change) {
+        while (true) {
+            CartState state = state(userId);
+            synchronized (state) {
+                if (state.evicted) {
+                    continue;
+                }
+                change.accept(state.items);
+                state.touch();
+                dirtyUsers.add(userId);
+            }
+            mutations.increment();
+            return;
+        }
+    }
+    
+    private CartState state(Long userId) {
+        CartState state = carts.get(userId);
+        if (state != null) {
+            return state;
+        }
+        // Load outside the map so a slow query does not block other users' carts
+        CartState loaded = load(userId);
+        state = carts.putIfAbsent(userId, loaded);
+        return state != null ? state : loaded;
+    }
+    
+    private CartState load(Long userId) {
+        Optional<Cart> stored = cartRepository.findByUserId(userId);
+        if (stored.isEmpty()) {
+            return new CartState(null, userService.getUserById(userId));
+        }
+        Cart cart = stored.get();
+        CartState state = new CartState(cart.getId(), cart.getUser());
+        for (CartItem item : cart.getItems()) {
+            state.items.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return state;
+    }
+    
+    /**
+     * Write the current contents of the given carts in one transaction. Only the
+     * differences to the stored rows are written.
+     */
+    private void writeBatch(List<Long> userIds) {
+        Map<Long, CartState> states = new HashMap<>();
+        Map<Long, Map<Long, Integer>> snapshots = new HashMap<>();
+        for (Long userId : userIds) {
+            CartState state = carts.get(userId);
+            if (state != null) {
+                synchronized (state) {
+                    states.put(userId, state);
+                    snapshots.put(userId, new LinkedHashMap<>(state.items));
+                }
+            }
+        }
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        
+        try {
+            Map<Long, Long> createdCartIds = writeSnapshots(states, snapshots);
+            createdCartIds.forEach((userId, cartId) -> states.get(userId).cartId = cartId);
+            flushedCarts.add(snapshots.size());
+            flushTransactions.increment();
+        } catch (RuntimeException e) {
+            // Keep the carts dirty so the next pass retries them
+            dirtyUsers.addAll(snapshots.keySet());
+            flushFailures.increment();
+            log.error("Failed to flush {} carts", snapshots.size(), e);
+        }
+    }
+    
+    /**
+     * Store the given cart contents, joining the caller's transaction if there
+     * is one; returns the ids of carts that had no row yet
+     */
+    private Map<Long, Long> writeSnapshots(Map<Long, CartState> states, Map<Long, Map<Long, Integer>> snapshots) {
+        return transactionTemplate.execute(status -> {
+            Map<Long, Long> created = new HashMap<>();
+            Map<Long, Cart> stored = new HashMap<>();
+            for (Cart cart : cartRepository.findByUserIdIn(snapshots.keySet())) {
+                stored.put(cart.getUser().getId(), cart);
+            }
+            for (Map.Entry<Long, Map<Long, Integer>> entry : snapshots.entrySet()) {
+                Cart cart = stored.get(entry.getKey());
+                if (cart == null) {
+                    cart = new Cart();
+                    cart.setUser(states.get(entry.getKey()).user);
+                    applyItems(cart, entry.getValue());
+                    created.put(entry.getKey(), cartRepository.save(cart).getId());
+                } else {
+                    applyItems(cart, entry.getValue());
+                }
+            }
+            return created;
+        });
+    }
+    
+    private void applyItems(Cart cart, Map<Long, Integer> quantities) {
+        Map<Long, Integer> remaining = new LinkedHashMap<>(quantities);
+        for (Iterator<CartItem> it = cart.getItems().iterator(); it.hasNext(); ) {
+            CartItem item = it.next();
+            Integer quantity = remaining.remove(item.getProduct().getId());
+            if (quantity == null) {
+                it.remove();
+            } else if (!quantity.equals(item.getQuantity())) {
+                item.setQuantity(quantity);
+            }
+        }
+        remaining.forEach((productId, quantity) -> {
+            CartItem item = new CartItem();
+            item.setCart(cart);
+            item.setProduct(productRepository.getReferenceById(productId));
+            item.setQuantity(quantity);
+            cart.getItems().add(item);
+        });
+    }
+    
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        carts.forEach((userId, state) -> {
+            synchronized (state) {
+                if (state.lastAccess < cutoff && !dirtyUsers.contains(userId)) {
+                    state.evicted = true;
+                    carts.remove(userId, state);
+                }
+            }
+        });
+    }
+    
+    @Override
+    public String getMetricsName() {
+        return "cartStore";
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("activeCarts", carts.size());
+        metrics.put("dirtyCarts", dirtyUsers.size());
+        metrics.put("mutations", mutations.sum());
+        metrics.put("flushedCarts", flushedCarts.sum());
+        metrics.put("flushTransactions", flushTransactions.sum());
+        metrics.put("flushFailures", flushFailures.sum());
+        return metrics;
+    }
+    
+    /**
+     * Quantities by product id; guarded by the instance monitor
+     */
+    private static final class CartState {
+        private final Map<Long, Integer> items = new LinkedHashMap<>();
+        private final User user;
+        private volatile Long cartId;
+        private long lastAccess = System.currentTimeMillis();
+        private boolean evicted;
+        
+        private CartState(Long cartId, User user) {
+            this.cartId = cartId;
+            this.user = user;
+        }
+        
+        private void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+    }
+}
\ No newline at end of file
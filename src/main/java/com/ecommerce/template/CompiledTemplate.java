@@ -0,0 +1,27 @@
+package com.ecommerce.template;
+
+import java.util.List;
+
+/**
+ * A template parsed once into static UTF-8 segments and bound slots. Rendering
+ * copies the segments and lets each slot write its value straight into the
+ * output, so no per-render parsing or string concatenation happens.
+ */
+public final class CompiledTemplate<T> {
+    
+    interface Part<T> {
+        void render(T model, HtmlOutput out);
+    }
+    
+    private final List<Part<T>> parts;
+    
+    CompiledTemplate(List<Part<T>> parts) {
+        this.parts = List.copyOf(parts);
+    }
+    
+    public void render(T model, HtmlOutput out) {
+        for (int i = 0; i < parts.size(); i++) {
+            parts.get(i).render(model, out);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.ecommerce.template;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One email template in all its locale variants, read from the classpath as
+ * {@code templates/email/<name>_<language>_<COUNTRY>.html}, then
+ * {@code <name>_<language>.html}, then {@code <name>.html}. The first line of a
+ * file is the subject, the rest the HTML body. Each variant is compiled on first
+ * use and cached for the requested locale.
+ */
+public final class EmailTemplate<T> {
+    
+    private static final String LOCATION = "templates/email/";
+    
+    private final String name;
+    private final TemplateBindings<T> bindings;
+    private final ConcurrentHashMap<Locale, Variant<T>> variants = new ConcurrentHashMap<>();
+    
+    public EmailTemplate(String name, TemplateBindings<T> bindings) {
+        this.name = name;
+        this.bindings = bindings;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int compiledVariants() {
+        return variants.size();
+    }
+    
+    /**
+     * Render subject and body for the locale. The output buffer is reused for both
+     * parts and may be reused by the caller afterwards.
+     */
+    public RenderedEmail render(T model, Locale locale, HtmlOutput out) {
+        Variant<T> variant = variants.computeIfAbsent(locale, this::load);
+        variant.subject.render(model, out.reset(locale, false));
+        String subject = out.toString();
+        variant.body.render(model, out.reset(locale));
+        return new RenderedEmail(subject, out.toString());
+    }
+    
+    private Variant<T> load(Locale locale) {
+        List<String> candidates = new ArrayList<>(3);
+        if (!locale.getCountry().isEmpty()) {
+            candidates.add(name + "_" + locale.getLanguage() + "_" + locale.getCountry());
+        }
+        if (!locale.getLanguage().isEmpty()) {
+            candidates.add(name + "_" + locale.getLanguage());
+        }
+        candidates.add(name);
+        
+        ClassLoader classLoader = EmailTemplate.class.getClassLoader();
+        for (String candidate : candidates) {
+            try (InputStream in = classLoader.getResourceAsStream(LOCATION + candidate + ".html")) {
+                if (in == null) {
+                    continue;
+                }
+                String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                int newline = source.indexOf('\n');
+                if (newline < 0) {
+                    throw new IllegalArgumentException("Template " + candidate + " has no body");
+                }
+                try {
+                    return new Variant<>(bindings.compile(source.substring(0, newline).trim()),
+                            bindings.compile(source.substring(newline + 1)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid template " + candidate + ": " + e.getMessage(), e);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read template " + candidate, e);
+            }
+        }
+        throw new IllegalStateException("No email template found for " + name);
+    }
+    
+    private static final class Variant<T> {
+        private final CompiledTemplate<T> subject;
+        private final CompiledTemplate<T> body;
+        
+        private Variant(CompiledTemplate<T> subject, CompiledTemplate<T> body) {
+            this.subject = subject;
+            this.body = body;
+        }
+    }
+}
\ No newline at end of file
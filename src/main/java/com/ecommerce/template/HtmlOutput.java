@@ -0,0 +1,278 @@
+package com.ecommerce.template;
+
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.Locale;
+
+/**
+ * Growable UTF-8 byte buffer that templates render into. Text written through
+ * {@link #text} or {@link #append} is HTML-escaped (unless reset for plain text,
+ * such as a subject line) and encoded on the fly, and numbers, money and dates
+ * are written without intermediate strings. Meant to be reused: {@link #reset}
+ * keeps the backing array.
+ */
+public final class HtmlOutput implements Appendable {
+    
+    private static final byte[] AMP = ascii("&amp;");
+    private static final byte[] LT = ascii("&lt;");
+    private static final byte[] GT = ascii("&gt;");
+    private static final byte[] QUOT = ascii("&quot;");
+    private static final byte[] APOS = ascii("&#39;");
+    
+    private byte[] buf;
+    private int len;
+    private char pendingHighSurrogate;
+    private boolean escape = true;
+    private final byte[] digits = new byte[20];
+    private final Currency currency;
+    
+    private Locale locale = Locale.ROOT;
+    private char decimalSeparator = '.';
+    private char groupingSeparator = ',';
+    private DateTimeFormatter dateTimeFormatter =
+            DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM).withLocale(Locale.ROOT);
+    private String currencyPrefix;
+    private String currencySuffix;
+    
+    /**
+     * @param currency currency of the amounts written with {@link #price}
+     */
+    public HtmlOutput(int initialCapacity, Currency currency) {
+        this.buf = new byte[initialCapacity];
+        this.currency = currency;
+        updateCurrencyAffixes();
+    }
+    
+    /**
+     * Clear the content and switch number and date formatting to the locale
+     */
+    public HtmlOutput reset(Locale locale) {
+        return reset(locale, true);
+    }
+    
+    public HtmlOutput reset(Locale locale, boolean escapeHtml) {
+        len = 0;
+        pendingHighSurrogate = 0;
+        escape = escapeHtml;
+        if (!locale.equals(this.locale)) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            this.locale = locale;
+            this.decimalSeparator = symbols.getDecimalSeparator();
+            this.groupingSeparator = symbols.getGroupingSeparator();
+            this.dateTimeFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM).withLocale(locale);
+            updateCurrencyAffixes();
+        }
+        return this;
+    }
+    
+    private void updateCurrencyAffixes() {
+        DecimalFormat format = (DecimalFormat) NumberFormat.getCurrencyInstance(locale);
+        format.setCurrency(currency);
+        currencyPrefix = format.getPositivePrefix();
+        currencySuffix = format.getPositiveSuffix();
+    }
+    
+    public int size() {
+        return len;
+    }
+    
+    public int capacity() {
+        return buf.length;
+    }
+    
+    /**
+     * Append pre-encoded bytes as they are (static template segments)
+     */
+    public HtmlOutput raw(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, len, bytes.length);
+        len += bytes.length;
+        return this;
+    }
+    
+    /**
+     * Append escaped text; null writes nothing
+     */
+    public HtmlOutput text(CharSequence text) {
+        if (text != null) {
+            for (int i = 0; i < text.length(); i++) {
+                append(text.charAt(i));
+            }
+        }
+        return this;
+    }
+    
+    public HtmlOutput number(long value) {
+        if (value < 0) {
+            writeByte('-');
+        }
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + Math.abs(value % 10));
+            value /= 10;
+        } while (value != 0);
+        ensure(digits.length - pos);
+        System.arraycopy(digits, pos, buf, len, digits.length - pos);
+        len += digits.length - pos;
+        return this;
+    }
+    
+    /**
+     * {@link #money} with the currency symbol placed the way the locale places
+     * it, e.g. {@code $1,234.50} or {@code 1.234,50 $}
+     */
+    public HtmlOutput price(long cents) {
+        if (cents < 0) {
+            writeByte('-');
+            cents = -cents;
+        }
+        text(currencyPrefix);
+        money(cents);
+        return text(currencySuffix);
+    }
+    
+    /**
+     * Append an amount given in cents with two decimals and the locale's
+     * grouping and decimal separators, e.g. {@code 1,234.50}
+     */
+    public HtmlOutput money(long cents) {
+        if (cents < 0) {
+            writeByte('-');
+            cents = -cents;
+        }
+        long units = cents / 100;
+        int pos = digits.length;
+        int grouped = 0;
+        do {
+            if (grouped == 3) {
+                grouped = 0;
+                digits[--pos] = 0;
+            }
+            digits[--pos] = (byte) ('0' + units % 10);
+            units /= 10;
+            grouped++;
+        } while (units != 0);
+        for (; pos < digits.length; pos++) {
+            if (digits[pos] == 0) {
+                append(groupingSeparator);
+            } else {
+                writeByte(digits[pos]);
+            }
+        }
+        append(decimalSeparator);
+        int fraction = (int) (cents % 100);
+        writeByte('0' + fraction / 10);
+        writeByte('0' + fraction % 10);
+        return this;
+    }
+    
+    /**
+     * Append a date-time in the locale's medium style; null writes nothing
+     */
+    public HtmlOutput dateTime(TemporalAccessor dateTime) {
+        if (dateTime != null) {
+            dateTimeFormatter.formatTo(dateTime, this);
+        }
+        return this;
+    }
+    
+    @Override
+    public HtmlOutput append(CharSequence text) {
+        return text(text);
+    }
+    
+    @Override
+    public HtmlOutput append(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            append(text.charAt(i));
+        }
+        return this;
+    }
+    
+    /**
+     * Append one escaped UTF-16 unit; surrogate pairs are joined across calls
+     */
+    @Override
+    public HtmlOutput append(char c) {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                writeCodePoint(Character.toCodePoint(high, c));
+                return this;
+            }
+            writeByte('?');
+        }
+        if (!escape && c < 0x80) {
+            writeByte(c);
+            return this;
+        }
+        switch (c) {
+            case '&' -> raw(AMP);
+            case '<' -> raw(LT);
+            case '>' -> raw(GT);
+            case '"' -> raw(QUOT);
+            case '\'' -> raw(APOS);
+            default -> {
+                if (c < 0x80) {
+                    writeByte(c);
+                } else if (Character.isHighSurrogate(c)) {
+                    pendingHighSurrogate = c;
+                } else if (Character.isLowSurrogate(c)) {
+                    writeByte('?');
+                } else {
+                    writeCodePoint(c);
+                }
+            }
+        }
+        return this;
+    }
+    
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, len);
+    }
+    
+    @Override
+    public String toString() {
+        return new String(buf, 0, len, StandardCharsets.UTF_8);
+    }
+    
+    private void writeCodePoint(int codePoint) {
+        ensure(4);
+        if (codePoint < 0x800) {
+            buf[len++] = (byte) (0xC0 | codePoint >> 6);
+            buf[len++] = (byte) (0x80 | codePoint & 0x3F);
+        } else if (codePoint < 0x10000) {
+            buf[len++] = (byte) (0xE0 | codePoint >> 12);
+            buf[len++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            buf[len++] = (byte) (0x80 | codePoint & 0x3F);
+        } else {
+            buf[len++] = (byte) (0xF0 | codePoint >> 18);
+            buf[len++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+            buf[len++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            buf[len++] = (byte) (0x80 | codePoint & 0x3F);
+        }
+    }
+    
+    private void writeByte(int b) {
+        ensure(1);
+        buf[len++] = (byte) b;
+    }
+    
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+    
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.ecommerce.template;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RenderedEmail {
+    private String subject;
+    private String html;
+}
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.ecommerce.template;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * What the names in a template mean for a model type: {@code {{name}}} slots
+ * write a value, {@code {{#name}}...{{/name}}} sections repeat their body for
+ * each element of a collection. Compiling fails on unknown names, so a broken
+ * template is found when it is loaded rather than when an email goes out.
+ */
+public final class TemplateBindings<T> {
+    
+    private final Map<String, BiConsumer<T, HtmlOutput>> slots = new HashMap<>();
+    private final Map<String, Section<T, ?>> sections = new HashMap<>();
+    
+    public TemplateBindings<T> slot(String name, BiConsumer<T, HtmlOutput> writer) {
+        slots.put(name, writer);
+        return this;
+    }
+    
+    public <E> TemplateBindings<T> section(String name, Function<T, ? extends Iterable<E>> elements,
+                                           TemplateBindings<E> elementBindings) {
+        sections.put(name, new Section<>(elements, elementBindings));
+        return this;
+    }
+    
+    public CompiledTemplate<T> compile(String source) {
+        return new Parser(source).parse(this, null);
+    }
+    
+    private static final class Section<T, E> {
+        private final Function<T, ? extends Iterable<E>> elements;
+        private final TemplateBindings<E> bindings;
+        
+        private Section(Function<T, ? extends Iterable<E>> elements, TemplateBindings<E> bindings) {
+            this.elements = elements;
+            this.bindings = bindings;
+        }
+        
+        private CompiledTemplate.Part<T> compile(Parser parser, String name) {
+            CompiledTemplate<E> body = parser.parse(bindings, name);
+            return (model, out) -> {
+                Iterable<E> items = elements.apply(model);
+                if (items != null) {
+                    for (E item : items) {
+                        body.render(item, out);
+                    }
+                }
+            };
+        }
+    }
+    
+    private static final class Parser {
+        private final String source;
+        private int pos;
+        
+        private Parser(String source) {
+            this.source = source;
+        }
+        
+        /**
+         * Parts up to the end of the source, or up to {@code {{/endTag}}} for a section body
+         */
+        private <T> CompiledTemplate<T> parse(TemplateBindings<T> bindings, String endTag) {
+            List<CompiledTemplate.Part<T>> parts = new ArrayList<>();
+            StringBuilder text = new StringBuilder();
+            while (true) {
+                int open = source.indexOf("{{", pos);
+                if (open < 0) {
+                    if (endTag != null) {
+                        throw new IllegalArgumentException("Section {{#" + endTag + "}} is not closed");
+                    }
+                    text.append(source, pos, source.length());
+                    pos = source.length();
+                    addText(parts, text);
+                    return new CompiledTemplate<>(parts);
+                }
+                int close = source.indexOf("}}", open + 2);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed tag at offset " + open);
+                }
+                text.append(source, pos, open);
+                String tag = source.substring(open + 2, close).trim();
+                pos = close + 2;
+                
+                if (tag.startsWith("/")) {
+                    if (!tag.substring(1).equals(endTag)) {
+                        throw new IllegalArgumentException("Unexpected {{" + tag + "}} at offset " + open);
+                    }
+                    addText(parts, text);
+                    return new CompiledTemplate<>(parts);
+                }
+                addText(parts, text);
+                if (tag.startsWith("#")) {
+                    String name = tag.substring(1);
+                    Section<T, ?> section = bindings.sections.get(name);
+                    if (section == null) {
+                        throw new IllegalArgumentException("Unknown section {{#" + name + "}}");
+                    }
+                    parts.add(section.compile(this, name));
+                } else {
+                    BiConsumer<T, HtmlOutput> slot = bindings.slots.get(tag);
+                    if (slot == null) {
+                        throw new IllegalArgumentException("Unknown slot {{" + tag + "}}");
+                    }
+                    parts.add(slot::accept);
+                }
+            }
+        }
+        
+        private static <T> void addText(List<CompiledTemplate.Part<T>> parts, StringBuilder text) {
+            if (text.length() > 0) {
+                byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+                parts.add((model, out) -> out.raw(bytes));
+                text.setLength(0);
+            }
+        }
+    }
+}
\ No newline at end of file
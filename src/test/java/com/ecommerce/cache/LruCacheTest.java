@@ -0,0 +1,82 @@
+package com.ecommerce.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LruCacheTest {
+    
+    @Test
+    void evictsTheLeastRecentlyUsedEntryOverMaxSize() {
+        LruCache<Integer, String> cache = new LruCache<>("test", 2, Duration.ofMinutes(1));
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.get(1);
+        cache.put(3, "three");
+        
+        assertThat(cache.get(1)).isEqualTo("one");
+        assertThat(cache.get(2)).isNull();
+        assertThat(cache.get(3)).isEqualTo("three");
+        assertThat(cache.getMetrics()).containsEntry("evictions", 1L);
+    }
+    
+    @Test
+    void expiresEntriesAfterTheTtl() throws InterruptedException {
+        LruCache<Integer, String> cache = new LruCache<>("test", 10, Duration.ofMillis(20));
+        cache.put(1, "one");
+        Thread.sleep(40);
+        
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getMetrics()).containsEntry("expirations", 1L);
+    }
+    
+    @Test
+    void readThroughLoadsOnceAndCachesTheResult() {
+        LruCache<Integer, String> cache = new LruCache<>("test", 10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        
+        assertThat(cache.get(1, key -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(cache.get(1, key -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(loads).hasValue(1);
+    }
+    
+    @Test
+    void loadOverlappingAnInvalidationIsNotCached() {
+        LruCache<Integer, String> cache = new LruCache<>("test", 10, Duration.ofMinutes(1));
+        
+        // The writer saves and invalidates while the reader's load is in progress
+        String loaded = cache.get(1, key -> {
+            cache.invalidate(1);
+            return "stale";
+        });
+        
+        assertThat(loaded).isEqualTo("stale");
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.get(1, key -> "fresh")).isEqualTo("fresh");
+        assertThat(cache.get(1)).isEqualTo("fresh");
+    }
+    
+    @Test
+    void batchPutIsRejectedAfterInvalidateAll() {
+        LruCache<Integer, String> cache = new LruCache<>("test", 10, Duration.ofMinutes(1));
+        long loadStarted = cache.generation();
+        cache.invalidateAll();
+        
+        assertThat(cache.putUnlessInvalidatedSince(1, "stale", loadStarted)).isFalse();
+        assertThat(cache.putUnlessInvalidatedSince(1, "fresh", cache.generation())).isTrue();
+        assertThat(cache.get(1)).isEqualTo("fresh");
+    }
+    
+    @Test
+    void putIfAbsentKeepsTheLiveEntry() {
+        LruCache<Integer, String> cache = new LruCache<>("test", 10, Duration.ofMinutes(1));
+        
+        assertThat(cache.putIfAbsent(1, "first")).isNull();
+        assertThat(cache.putIfAbsent(1, "second")).isEqualTo("first");
+        assertThat(cache.get(1)).isEqualTo("first");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.ecommerce.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationExecutorTest {
+    
+    @Test
+    void eachTaskIsCountedOnce() throws Exception {
+        NotificationExecutor executor = new NotificationExecutor("test", NotificationExecutor.Mode.PLATFORM, 2, 10,
+                NotificationExecutor.RejectionPolicy.ABORT, 10, Duration.ofSeconds(5));
+        
+        executor.execute(() -> { });
+        executor.execute(() -> {
+            throw new IllegalStateException("thrown");
+        });
+        // What an @Async void method does: the exception goes to the uncaught handler and the task returns
+        executor.execute(executor::recordFailure);
+        executor.destroy();
+        
+        Map<String, Object> metrics = executor.getMetrics();
+        assertThat(metrics).containsEntry("submitted", 3L)
+                .containsEntry("completed", 1L)
+                .containsEntry("failed", 2L);
+    }
+    
+    @Test
+    void failureReportedOutsideATaskIsCounted() throws Exception {
+        NotificationExecutor executor = new NotificationExecutor("test", NotificationExecutor.Mode.PLATFORM, 1, 10,
+                NotificationExecutor.RejectionPolicy.ABORT, 10, Duration.ofSeconds(5));
+        
+        executor.recordFailure();
+        executor.destroy();
+        
+        assertThat(executor.getMetrics()).containsEntry("failed", 1L).containsEntry("completed", 0L);
+    }
+}
\ No newline at end of file
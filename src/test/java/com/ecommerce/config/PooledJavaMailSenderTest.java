@@ -0,0 +1,280 @@
+package com.ecommerce.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PooledJavaMailSenderTest {
+    
+    private SmtpStub smtp;
+    private PooledJavaMailSender sender;
+    
+    @AfterEach
+    void stop() throws IOException {
+        if (sender != null) {
+            sender.destroy();
+        }
+        smtp.close();
+    }
+    
+    @Test
+    void connectionIsReusedBetweenSends() throws Exception {
+        smtp = new SmtpStub(0, 0);
+        sender = pooled(4, 100);
+        
+        for (int i = 0; i < 5; i++) {
+            sender.send(message(i));
+        }
+        
+        assertThat(smtp.messages).hasValue(5);
+        assertThat(smtp.connections).hasValue(1);
+        assertThat(sender.getMetrics()).containsEntry("connectionsReused", 4L);
+    }
+    
+    @Test
+    void staleConnectionIsReplaced() throws Exception {
+        smtp = new SmtpStub(0, 0);
+        sender = pooled(4, 100);
+        sender.send(message(1));
+        
+        smtp.dropConnections();
+        sender.send(message(2));
+        
+        assertThat(smtp.messages).hasValue(2);
+        assertThat(smtp.connections).hasValue(2);
+    }
+    
+    @Test
+    void failedReconnectIsAMailSendException() throws Exception {
+        smtp = new SmtpStub(0, 0);
+        sender = pooled(4, 100);
+        sender.send(message(1));
+        
+        smtp.close();
+        
+        assertThatThrownBy(() -> sender.send(message(2))).isInstanceOf(MailSendException.class);
+        assertThat(sender.getMetrics()).containsEntry("messagesFailed", 1L).containsEntry("inUse", 0);
+    }
+    
+    @Test
+    void connectionIsClosedAfterMaxMessages() throws Exception {
+        smtp = new SmtpStub(0, 0);
+        sender = pooled(4, 2);
+        
+        for (int i = 0; i < 5; i++) {
+            sender.send(message(i));
+        }
+        
+        assertThat(smtp.messages).hasValue(5);
+        assertThat(smtp.connections).hasValue(3);
+    }
+    
+    @Test
+    void concurrentSendsShareAtMostMaxConnections() throws Exception {
+        smtp = new SmtpStub(0, 50);
+        sender = pooled(2, 100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> sends = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                int n = i;
+                sends.add(executor.submit(() -> sender.send(message(n))));
+            }
+            for (Future<?> send : sends) {
+                send.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        assertThat(smtp.messages).hasValue(16);
+        assertThat(smtp.maxOpen.get()).isLessThanOrEqualTo(2);
+        assertThat(smtp.connections.get()).isLessThanOrEqualTo(2);
+    }
+    
+    /**
+     * The plain sender pays the handshake (greeting, EHLO and, in production,
+     * STARTTLS and AUTH) for every message; the pool pays it once. With a 20 ms
+     * handshake and 100 messages on one thread this measured around 40 msg/s
+     * for the plain sender against 420-450 msg/s pooled.
+     */
+    @Test
+    void pooledSenderOutrunsThePlainOneWhenConnectingIsSlow() throws Exception {
+        smtp = new SmtpStub(20, 0);
+        JavaMailSenderImpl plain = new JavaMailSenderImpl();
+        plain.setHost("localhost");
+        plain.setPort(smtp.port());
+        sender = pooled(1, 1000);
+        int count = 100;
+        
+        long plainNanos = timeSends(plain, count);
+        int plainConnections = smtp.connections.getAndSet(0);
+        long pooledNanos = timeSends(sender, count);
+        
+        assertThat(plainConnections).isEqualTo(count);
+        assertThat(smtp.connections).hasValue(1);
+        assertThat(pooledNanos).isLessThan(plainNanos / 4);
+    }
+    
+    private PooledJavaMailSender pooled(int maxConnections, int maxMessagesPerConnection) {
+        PooledJavaMailSender pooled = new PooledJavaMailSender(maxConnections, maxMessagesPerConnection,
+                Duration.ofMinutes(1), Duration.ofSeconds(30));
+        pooled.setHost("localhost");
+        pooled.setPort(smtp.port());
+        return pooled;
+    }
+    
+    private static long timeSends(JavaMailSenderImpl mailSender, int count) {
+        long started = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            mailSender.send(message(i));
+        }
+        return System.nanoTime() - started;
+    }
+    
+    private static SimpleMailMessage message(int n) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("shop@example.com");
+        message.setTo("customer" + n + "@example.com");
+        message.setSubject("Order " + n);
+        message.setText("Thanks for your order");
+        return message;
+    }
+    
+    /**
+     * Just enough SMTP for JavaMail: accepts every command and counts
+     * connections and messages
+     */
+    private static final class SmtpStub implements Closeable {
+        private final ServerSocket server;
+        private final Thread acceptor;
+        private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+        private final long greetingDelayMillis;
+        private final long dataDelayMillis;
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger messages = new AtomicInteger();
+        private final AtomicInteger open = new AtomicInteger();
+        private final AtomicInteger maxOpen = new AtomicInteger();
+        
+        private SmtpStub(long greetingDelayMillis, long dataDelayMillis) throws IOException {
+            this.greetingDelayMillis = greetingDelayMillis;
+            this.dataDelayMillis = dataDelayMillis;
+            this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            this.acceptor = new Thread(this::accept, "smtp-stub");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+        
+        private int port() {
+            return server.getLocalPort();
+        }
+        
+        private void accept() {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    sockets.add(socket);
+                    Thread session = new Thread(() -> serve(socket), "smtp-stub-session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+        
+        private void serve(Socket socket) {
+            connections.incrementAndGet();
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+                pause(greetingDelayMillis);
+                reply(out, "220 localhost ESMTP stub");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() < 4 ? line : line.substring(0, 4).toUpperCase(Locale.ROOT);
+                    switch (command) {
+                        case "EHLO" -> reply(out, "250-localhost\r\n250 8BITMIME");
+                        case "DATA" -> {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            while (!".".equals(line = in.readLine())) {
+                                if (line == null) {
+                                    return;
+                                }
+                            }
+                            pause(dataDelayMillis);
+                            messages.incrementAndGet();
+                            reply(out, "250 OK");
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 Bye");
+                            return;
+                        }
+                        default -> reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // Dropped by the test or the client
+            } finally {
+                open.decrementAndGet();
+                sockets.remove(socket);
+            }
+        }
+        
+        /**
+         * What a server does to connections it considers idle
+         */
+        private void dropConnections() throws IOException {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+        
+        /**
+         * Returns once nothing can connect any more: closing the server socket
+         * does not wait for a blocked accept, which can still take a connection
+         */
+        @Override
+        public void close() throws IOException {
+            server.close();
+            try {
+                acceptor.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dropConnections();
+        }
+        
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+        
+        private static void pause(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.ecommerce.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorPageTest {
+    
+    @Test
+    void cursorRoundTrips() {
+        assertThat(CursorPage.decodeCursor(CursorPage.encodeCursor(42L))).isEqualTo(42L);
+        assertThat(CursorPage.decodeCursor(null)).isZero();
+        assertThat(CursorPage.decodeCursor("")).isZero();
+    }
+    
+    @Test
+    void malformedCursorIsABadRequest() {
+        String wrongPrefix = Base64.getUrlEncoder().encodeToString("page:3".getBytes(StandardCharsets.UTF_8));
+        String notANumber = Base64.getUrlEncoder().encodeToString("id:abc".getBytes(StandardCharsets.UTF_8));
+        
+        for (String cursor : new String[] {"not base64!", wrongPrefix, notANumber}) {
+            assertThatThrownBy(() -> CursorPage.decodeCursor(cursor))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.ecommerce.pricing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoneyTest {
+    
+    @Test
+    void amountsRoundToTheNearestCent() {
+        assertThat(Money.toCents(19.99)).isEqualTo(1999);
+        assertThat(Money.toCents(0.1 + 0.2)).isEqualTo(30);
+    }
+    
+    @Test
+    void centsConvertBackToAmounts() {
+        assertThat(Money.toAmount(1999)).isEqualTo(19.99);
+        assertThat(Money.toAmount(0)).isZero();
+    }
+    
+    @Test
+    void percentOfRoundsHalfUp() {
+        // 10% of 12.34 is 1.234; 15% of 1.50 is 0.225
+        assertThat(Money.percentOf(1_234, 1_000)).isEqualTo(123);
+        assertThat(Money.percentOf(150, 1_500)).isEqualTo(23);
+        assertThat(Money.percentOf(10_000, 825)).isEqualTo(825);
+        assertThat(Money.percentOf(0, 2_000)).isZero();
+    }
+}
\ No newline at end of file
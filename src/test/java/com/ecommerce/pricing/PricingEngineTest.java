@@ -0,0 +1,97 @@
+package com.ecommerce.pricing;
+
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PricingEngineTest {
+    
+    @Test
+    void sumsLinesInCentsWithoutRules() {
+        PriceBreakdown breakdown = new PricingEngine(List.of())
+                .priceCart(List.of(cartItem(0.10, 3), cartItem(0.20, 1), cartItem(19.99, 2)));
+        
+        assertThat(breakdown.getLineCount()).isEqualTo(3);
+        assertThat(breakdown.getUnitCount()).isEqualTo(6);
+        assertThat(breakdown.getSubtotalCents()).isEqualTo(30 + 20 + 3998);
+        assertThat(breakdown.getTotal()).isEqualTo(40.48);
+    }
+    
+    @Test
+    void ordersArePricedAtTheirRecordedPrice() {
+        OrderItem item = new OrderItem();
+        item.setProduct(product(99.0));
+        item.setPrice(12.50);
+        item.setQuantity(2);
+        
+        assertThat(new PricingEngine(List.of()).priceOrder(List.of(item)).getSubtotalCents()).isEqualTo(2500);
+    }
+    
+    @Test
+    void rulesApplyInOrderOnTheDiscountedSubtotal() {
+        PricingEngine engine = new PricingEngine(List.of(
+                new DiscountRule(10, 50),
+                new TaxRule(8.25),
+                new ShippingRule(4.99, 100)));
+        
+        PriceBreakdown breakdown = engine.priceCart(List.of(cartItem(30.00, 2)));
+        
+        assertThat(breakdown.getDiscountCents()).isEqualTo(600);
+        // 8.25% of 54.00
+        assertThat(breakdown.getTaxCents()).isEqualTo(446);
+        assertThat(breakdown.getShippingCents()).isEqualTo(499);
+        assertThat(breakdown.getTotalCents()).isEqualTo(6000 - 600 + 446 + 499);
+    }
+    
+    @Test
+    void discountAndFreeShippingNeedTheirThresholds() {
+        PricingEngine engine = new PricingEngine(List.of(new DiscountRule(10, 50), new ShippingRule(4.99, 100)));
+        
+        PriceBreakdown small = engine.priceCart(List.of(cartItem(20.00, 2)));
+        assertThat(small.getDiscountCents()).isZero();
+        assertThat(small.getShippingCents()).isEqualTo(499);
+        
+        // 120.00 less 10% is 108.00, over the free shipping threshold
+        PriceBreakdown large = engine.priceCart(List.of(cartItem(60.00, 2)));
+        assertThat(large.getDiscountCents()).isEqualTo(1200);
+        assertThat(large.getShippingCents()).isZero();
+    }
+    
+    @Test
+    void emptyCartIsNotCharged() {
+        PriceBreakdown breakdown = new PricingEngine(List.of(new ShippingRule(4.99, 0))).priceCart(List.of());
+        
+        assertThat(breakdown.getTotalCents()).isZero();
+    }
+    
+    @Test
+    void cartTotalPriceIsWhatCheckoutCharges() {
+        Cart cart = new Cart();
+        cart.getItems().add(cartItem(0.10, 3));
+        assertThat(cart.getTotalPrice()).isEqualTo(0.30);
+        
+        cart.setPricing(new PricingEngine(List.of(new DiscountRule(50, 0), new ShippingRule(4.99, 0)))
+                .priceCart(cart.getItems()));
+        
+        assertThat(cart.getTotalPrice()).isEqualTo(5.14);
+    }
+    
+    private static CartItem cartItem(double price, int quantity) {
+        CartItem item = new CartItem();
+        item.setProduct(product(price));
+        item.setQuantity(quantity);
+        return item;
+    }
+    
+    private static Product product(double price) {
+        Product product = new Product();
+        product.setPrice(price);
+        return product;
+    }
+}
\ No newline at end of file
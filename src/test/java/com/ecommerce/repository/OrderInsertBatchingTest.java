@@ -0,0 +1,98 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.config.QueryCounter;
+import com.ecommerce.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Insert statements sent for a checkout. Order and item ids come from the
+ * table generators in blocks of {@link IdGenerators#ALLOCATION_SIZE}, so they
+ * are known before the insert and the item rows go out as one JDBC batch, which
+ * the statement inspector counts once. The generator's own round trips run on a
+ * separate connection and are not counted. With IDENTITY ids each line would be
+ * a statement of its own.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class OrderInsertBatchingTest {
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    private User user;
+    private Product product;
+    
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setName("batch");
+        user.setEmail("batch@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        product = new Product();
+        product.setName("Lamp");
+        product.setCategory("Home");
+        product.setPrice(10.0);
+        product.setStockQuantity(100);
+        entityManager.persist(product);
+        entityManager.flush();
+    }
+    
+    @AfterEach
+    void closeScope() {
+        QueryCounter.end();
+    }
+    
+    @Test
+    void checkoutLinesAreInsertedAsOneBatch() {
+        // The order row, then every item row in one batch
+        assertThat(statementsToInsert(1)).isEqualTo(2);
+        assertThat(statementsToInsert(10)).isEqualTo(2);
+        assertThat(statementsToInsert(50)).isEqualTo(2);
+    }
+    
+    @Test
+    void idsAreAssignedBeforeTheInsert() {
+        Order order = orderRepository.save(order(10));
+        
+        assertThat(order.getId()).isNotNull();
+        assertThat(order.getItems()).extracting(OrderItem::getId).doesNotContainNull().doesNotHaveDuplicates();
+    }
+    
+    private int statementsToInsert(int lines) {
+        Order order = order(lines);
+        QueryCounter.begin(Integer.MAX_VALUE, false);
+        orderRepository.save(order);
+        entityManager.flush();
+        return QueryCounter.end();
+    }
+    
+    private Order order(int lines) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setShippingAddress("1 Main St");
+        order.setTotalAmount(10.0 * lines);
+        for (int i = 0; i < lines; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setPrice(10.0);
+            order.getItems().add(item);
+        }
+        return order;
+    }
+}
\ No newline at end of file
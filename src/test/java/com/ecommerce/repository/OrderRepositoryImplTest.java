@@ -0,0 +1,135 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The archive table is only read when the requested range reaches past the
+ * archive cutoff (180 days by default). Archived rows are returned as detached
+ * orders with their user, items and products.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class OrderRepositoryImplTest {
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    private JdbcTemplate jdbcTemplate;
+    private User user;
+    private Product product;
+    private Long hotOrderId;
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // OrderArchiveService creates these with MySQL's CREATE TABLE ... LIKE
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS orders_archive AS SELECT * FROM orders WHERE 1 = 0");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS order_items_archive AS SELECT * FROM order_items WHERE 1 = 0");
+        
+        user = new User();
+        user.setName("Ada");
+        user.setEmail("ada@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        product = new Product();
+        product.setName("Lamp");
+        product.setCategory("Home");
+        product.setPrice(17.5);
+        product.setStockQuantity(5);
+        entityManager.persist(product);
+        Order order = new Order();
+        order.setUser(user);
+        order.setShippingAddress("1 Main St");
+        order.setTotalAmount(17.5);
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(1);
+        item.setPrice(17.5);
+        order.getItems().add(item);
+        entityManager.persist(order);
+        entityManager.flush();
+        entityManager.clear();
+        hotOrderId = order.getId();
+    }
+    
+    @Test
+    void openRangeReadsBothTablesNewestFirst() {
+        Long archivedId = archive(LocalDateTime.now().minusYears(2));
+        
+        List<Order> orders = orderRepository.findByUserIdCreatedBetween(user.getId(), null, null);
+        
+        assertThat(orders).extracting(Order::getId).containsExactly(hotOrderId, archivedId);
+        Order archived = orders.get(1);
+        assertThat(archived.getStatus()).isEqualTo(Order.OrderStatus.DELIVERED);
+        assertThat(archived.getUser().getEmail()).isEqualTo("ada@example.com");
+        assertThat(archived.getItems()).singleElement().satisfies(item -> {
+            assertThat(item.getQuantity()).isEqualTo(2);
+            assertThat(item.getProduct().getName()).isEqualTo("Lamp");
+        });
+    }
+    
+    @Test
+    void rangeWithinTheCutoffStaysOnTheHotTables() {
+        // Never left there by the archiver; here it shows whether the archive is read at all
+        archive(LocalDateTime.now().minusDays(1));
+        
+        List<Order> orders = orderRepository.findByUserIdCreatedBetween(user.getId(), LocalDateTime.now().minusDays(30), null);
+        
+        assertThat(orders).extracting(Order::getId).containsExactly(hotOrderId);
+    }
+    
+    @Test
+    void rangeBeforeTheCutoffFindsOnlyArchivedOrders() {
+        Long archivedId = archive(LocalDateTime.now().minusYears(2));
+        archive(LocalDateTime.now().minusYears(4));
+        
+        List<Order> orders = orderRepository.findByUserIdCreatedBetween(user.getId(),
+                LocalDateTime.now().minusYears(3), LocalDateTime.now().minusYears(1));
+        
+        assertThat(orders).extracting(Order::getId).containsExactly(archivedId);
+    }
+    
+    @Test
+    void archivedOrdersAreFoundById() {
+        Long archivedId = archive(LocalDateTime.now().minusYears(2));
+        
+        assertThat(orderRepository.findArchivedById(archivedId)).get()
+                .satisfies(order -> assertThat(order.getTotalAmount()).isEqualTo(35.0));
+        assertThat(orderRepository.findArchivedById(hotOrderId)).isEmpty();
+    }
+    
+    private Long archive(LocalDateTime createdAt) {
+        Long id = hotOrderId + 1000 + jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders_archive", Long.class);
+        jdbcTemplate.update("INSERT INTO orders_archive (id, user_id, total_amount, status, shipping_address, created_at) "
+                + "VALUES (?, ?, 35.0, 'DELIVERED', 'Old St', ?)", id, user.getId(), Timestamp.valueOf(createdAt));
+        jdbcTemplate.update("INSERT INTO order_items_archive (id, order_id, product_id, quantity, price) VALUES (?, ?, ?, 2, 17.5)",
+                id, id, product.getId());
+        return id;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,174 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.config.QueryCounter;
+import com.ecommerce.model.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Statement counts of the reads behind the order and cart endpoints, with the
+ * result serialized as the controllers do. The counts must not grow with the
+ * number of orders, items or products.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class QueryBudgetTest {
+    
+    private static final int ORDERS = 12;
+    private static final int ITEMS_PER_ORDER = 3;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private CartRepository cartRepository;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    
+    @AfterEach
+    void closeScope() {
+        QueryCounter.end();
+    }
+    
+    @Test
+    void orderByIdLoadsTheAggregateInOneStatement() {
+        User user = persistUserWithOrders(ORDERS);
+        Long orderId = orderRepository.findByUserId(user.getId()).get(0).getId();
+        entityManager.clear();
+        
+        assertThat(statementsToRender(() -> orderRepository.findById(orderId).orElseThrow())).isEqualTo(1);
+    }
+    
+    @Test
+    void ordersOfAUserLoadInOneStatement() {
+        User user = persistUserWithOrders(ORDERS);
+        
+        assertThat(statementsToRender(() -> orderRepository.findByUserId(user.getId()))).isEqualTo(1);
+    }
+    
+    @Test
+    void allOrdersLoadInOneStatement() {
+        persistUserWithOrders(ORDERS);
+        persistUserWithOrders(2);
+        
+        assertThat(statementsToRender(orderRepository::findAll)).isEqualTo(1);
+    }
+    
+    @Test
+    void orderPagesStayWithinAConstantBudget() {
+        User few = persistUserWithOrders(2);
+        User many = persistUserWithOrders(ORDERS);
+        PageRequest page = PageRequest.of(0, 20);
+        
+        int forFew = statementsToRender(() ->
+                orderRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(few.getId(), 0L, page).getContent());
+        int forMany = statementsToRender(() ->
+                orderRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(many.getId(), 0L, page).getContent());
+        int allOrders = statementsToRender(() -> orderRepository.findByIdGreaterThanOrderByIdAsc(0L, page).getContent());
+        
+        // Page of orders with the user joined, then one batch of items with their products
+        assertThat(forFew).isEqualTo(2);
+        assertThat(forMany).isEqualTo(2);
+        assertThat(allOrders).isEqualTo(2);
+    }
+    
+    @Test
+    void cartLoadsInOneStatement() {
+        User user = persistUser("cart");
+        Cart cart = new Cart();
+        cart.setUser(user);
+        for (int i = 0; i < ITEMS_PER_ORDER * 4; i++) {
+            CartItem item = new CartItem();
+            item.setCart(cart);
+            item.setProduct(persistProduct("cart-" + i));
+            item.setQuantity(1);
+            cart.getItems().add(item);
+        }
+        entityManager.persist(cart);
+        entityManager.flush();
+        entityManager.clear();
+        
+        assertThat(statementsToRender(() -> cartRepository.findByUserId(user.getId()).orElseThrow())).isEqualTo(1);
+    }
+    
+    @Test
+    void strictModeFailsTheStatementOverBudget() {
+        User user = persistUserWithOrders(2);
+        QueryCounter.begin(1, true);
+        orderRepository.findByUserId(user.getId());
+        
+        assertThat(catchThrowable(() -> cartRepository.findByUserId(user.getId())))
+                .hasRootCauseInstanceOf(IllegalStateException.class)
+                .rootCause().hasMessageContaining("Query budget of 1");
+    }
+    
+    /**
+     * Statements run to load and serialize the result, starting from an empty
+     * persistence context like a fresh request
+     */
+    private int statementsToRender(Supplier<Object> load) {
+        entityManager.clear();
+        QueryCounter.begin(Integer.MAX_VALUE, false);
+        try {
+            objectMapper.writeValueAsString(load.get());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return QueryCounter.end();
+    }
+    
+    private User persistUserWithOrders(int orders) {
+        User user = persistUser("orders-" + orders);
+        for (int o = 0; o < orders; o++) {
+            Order order = new Order();
+            order.setUser(user);
+            order.setShippingAddress("1 Main St");
+            order.setTotalAmount(30.0);
+            for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+                OrderItem item = new OrderItem();
+                item.setOrder(order);
+                item.setProduct(persistProduct(user.getEmail() + "-" + o + "-" + i));
+                item.setQuantity(1);
+                item.setPrice(10.0);
+                order.getItems().add(item);
+            }
+            entityManager.persist(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return user;
+    }
+    
+    private User persistUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("secret");
+        return entityManager.persist(user);
+    }
+    
+    private Product persistProduct(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setCategory("Test");
+        product.setPrice(10.0);
+        product.setStockQuantity(5);
+        return entityManager.persist(product);
+    }
+}
\ No newline at end of file
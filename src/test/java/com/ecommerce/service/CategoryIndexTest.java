@@ -0,0 +1,66 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.ecommerce.service.ProductSearchIndexTest.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class CategoryIndexTest {
+    
+    private final CategoryIndex index = new CategoryIndex();
+    
+    @BeforeEach
+    void setUp() {
+        index.rebuild(List.of(
+                product(3L, "Mouse", "Electronics", null),
+                product(1L, "Laptop", "Electronics", null),
+                product(2L, "Lamp", "Home", null),
+                product(4L, "Cable", "electronics ", null)));
+    }
+    
+    @Test
+    void matchesCategoriesCaseInsensitivelyWithSortedIds() {
+        assertThat(index.getProductIds("ELECTRONICS")).containsExactly(1L, 3L, 4L);
+        assertThat(index.count("home")).isEqualTo(1);
+        assertThat(index.getProductIds("Garden")).isEmpty();
+    }
+    
+    @Test
+    void countsCategoriesLargestFirst() {
+        assertThat(index.getCategoryCounts()).containsExactly(entry("Electronics", 3), entry("Home", 1));
+    }
+    
+    @Test
+    void countsCategoriesOfASubset() {
+        assertThat(index.getCategoryCounts(List.of(
+                product(2L, "Lamp", "Home", null),
+                product(5L, "Rug", "HOME", null),
+                product(1L, "Laptop", "Electronics", null))))
+                .containsExactly(entry("Home", 2), entry("Electronics", 1));
+    }
+    
+    @Test
+    void movesProductsBetweenCategoriesAndDropsEmptyOnes() {
+        index.onProductSaved(product(2L, "Lamp", "Electronics", null));
+        assertThat(index.getProductIds("electronics")).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(index.getCategoryCounts()).containsOnlyKeys("Electronics");
+        
+        index.onProductDeleted(3L);
+        index.onProductSaved(product(9L, "Sofa", "Furniture", null));
+        assertThat(index.getProductIds("electronics")).containsExactly(1L, 2L, 4L);
+        assertThat(index.getProductIds("furniture")).containsExactly(9L);
+    }
+    
+    @Test
+    void readersKeepTheirSnapshotAcrossWrites() {
+        long[] before = index.getProductIds("electronics");
+        index.onProductDeleted(1L);
+        
+        assertThat(before).containsExactly(1L, 3L, 4L);
+        assertThat(index.getProductIds("electronics")).containsExactly(3L, 4L);
+    }
+}
\ No newline at end of file
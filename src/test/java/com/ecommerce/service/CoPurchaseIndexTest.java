@@ -0,0 +1,68 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.OrderCancelledEvent;
+import com.ecommerce.event.OrderCreatedEvent;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CoPurchaseIndexTest {
+    
+    private final CoPurchaseIndex index = new CoPurchaseIndex(mock(DataSource.class), 20, 1000);
+    
+    @Test
+    void neighboursAreRankedByOrdersInCommon() {
+        index.onOrderCreated(created(1L, 1L, 2L, 3L));
+        index.onOrderCreated(created(2L, 1L, 3L));
+        index.onOrderCreated(created(3L, 1L, 3L, 3L));
+        
+        assertThat(index.getTopNeighbors(1L, 10)).containsExactly(3L, 2L);
+        assertThat(index.getTopNeighbors(1L, 1)).containsExactly(3L);
+        assertThat(index.getTopNeighbors(2L, 10)).containsExactly(1L, 3L);
+    }
+    
+    @Test
+    void singleProductOrderHasNoNeighbours() {
+        index.onOrderCreated(created(1L, 4L, 4L));
+        
+        assertThat(index.getTopNeighbors(4L, 10)).isEmpty();
+    }
+    
+    @Test
+    void cancelledOrderIsTakenBackOut() {
+        index.onOrderCreated(created(1L, 1L, 2L));
+        index.onOrderCreated(created(2L, 1L, 3L));
+        index.onOrderCreated(created(3L, 1L, 3L));
+        
+        index.onOrderCancelled(cancelled(1L, 1L, 2L));
+        
+        assertThat(index.getTopNeighbors(1L, 10)).containsExactly(3L);
+        assertThat(index.getTopNeighbors(2L, 10)).isEmpty();
+        
+        index.onOrderCancelled(cancelled(2L, 1L, 3L));
+        
+        assertThat(index.getTopNeighbors(1L, 10)).containsExactly(3L);
+    }
+    
+    private static OrderCreatedEvent created(Long orderId, long... productIds) {
+        return new OrderCreatedEvent(orderId, 7L, LocalDateTime.now(), lines(productIds));
+    }
+    
+    private static OrderCancelledEvent cancelled(Long orderId, long... productIds) {
+        return new OrderCancelledEvent(orderId, LocalDateTime.now(), lines(productIds));
+    }
+    
+    private static List<OrderCreatedEvent.Line> lines(long... productIds) {
+        List<OrderCreatedEvent.Line> lines = new ArrayList<>();
+        for (long productId : productIds) {
+            lines.add(new OrderCreatedEvent.Line(productId, "Home", 1, 10.0));
+        }
+        return lines;
+    }
+}
\ No newline at end of file
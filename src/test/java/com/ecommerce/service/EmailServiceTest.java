@@ -0,0 +1,49 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.NotificationExecutor;
+import com.ecommerce.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class EmailServiceTest {
+    
+    @TempDir
+    Path dir;
+    
+    private NotificationJournal journal;
+    
+    @AfterEach
+    void closeJournal() throws Exception {
+        journal.close();
+    }
+    
+    @Test
+    void emailTurnedAwayByTheExecutorIsLeftForTheRetrier() throws Exception {
+        journal = new NotificationJournal(dir.resolve("journal.log").toString(), false, 100, DataSize.ofMegabytes(16),
+                8, Duration.ZERO, Duration.ZERO, Duration.ofMinutes(10));
+        journal.open();
+        NotificationExecutor executor = mock(NotificationExecutor.class);
+        doThrow(new TaskRejectedException("full")).when(executor).execute(any(Runnable.class));
+        EmailService emailService = new EmailService(mock(JavaMailSender.class), new EmailTemplates("en", "USD"), journal, executor);
+        User user = new User();
+        user.setName("Ada");
+        user.setEmail("ada@example.com");
+        
+        emailService.sendWelcomeEmail(user);
+        
+        assertThat(journal.claimDue(10)).singleElement()
+                .satisfies(entry -> assertThat(entry.getRecipient()).isEqualTo("ada@example.com"));
+    }
+}
\ No newline at end of file
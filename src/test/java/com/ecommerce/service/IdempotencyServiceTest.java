@@ -0,0 +1,167 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.PaymentRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyServiceTest {
+    
+    private final IdempotencyService service = new IdempotencyService(2, Duration.ofHours(1), new ObjectMapper());
+    
+    @Test
+    void repeatReplaysTheFirstResponse() {
+        AtomicInteger runs = new AtomicInteger();
+        
+        ResponseEntity<String> first = service.execute("payments", "k1", payment("4111"), () -> ok("paid-" + runs.incrementAndGet()));
+        ResponseEntity<String> again = service.execute("payments", "k1", payment("4111"), () -> ok("paid-" + runs.incrementAndGet()));
+        
+        assertThat(runs).hasValue(1);
+        assertThat(again.getBody()).isEqualTo(first.getBody());
+        assertThat(again.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(first.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+    }
+    
+    @Test
+    void keyReusedForDifferentRequestIsRejected() {
+        service.execute("payments", "k1", payment("4111"), () -> ok("paid"));
+        
+        assertThatThrownBy(() -> service.execute("payments", "k1", payment("5500"), () -> ok("paid")))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+    }
+    
+    @Test
+    void equalRequestsMatchWhateverTheirKeyOrder() {
+        service.execute("orders", "k1", Map.of("a", 1, "b", 2), () -> ok("created"));
+        
+        ResponseEntity<String> again = service.execute("orders", "k1", new java.util.TreeMap<>(Map.of("b", 2, "a", 1)),
+                () -> ok("created twice"));
+        
+        assertThat(again.getBody()).isEqualTo("created");
+    }
+    
+    @Test
+    void failedExecutionIsForgottenSoTheClientCanRetry() {
+        assertThatThrownBy(() -> service.execute("payments", "k1", payment("4111"), () -> {
+            throw new IllegalStateException("gateway down");
+        })).hasMessage("gateway down");
+        
+        assertThat(service.execute("payments", "k1", payment("4111"), () -> ok("paid")).getBody()).isEqualTo("paid");
+    }
+    
+    @Test
+    void waitersAreReleasedWhenTheFirstRequestDiesWithAnError() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> service.execute("payments", "k1", payment("4111"), () -> {
+                running.countDown();
+                await(fail);
+                throw new OutOfMemoryError("boom");
+            }));
+            running.await();
+            Future<?> waiter = executor.submit(() -> service.execute("payments", "k1", payment("4111"), () -> ok("second")));
+            Thread.sleep(50);
+            fail.countDown();
+            
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(OutOfMemoryError.class);
+            assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void runningExecutionSurvivesEviction() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<String>> first = executor.submit(() -> service.execute("payments", "slow", payment("4111"), () -> {
+                runs.incrementAndGet();
+                running.countDown();
+                await(finish);
+                return ok("paid");
+            }));
+            running.await();
+            // More finished keys than the cache holds
+            for (int i = 0; i < 5; i++) {
+                service.execute("payments", "other-" + i, payment("4111"), () -> ok("other"));
+            }
+            Future<ResponseEntity<String>> again = executor.submit(() -> service.execute("payments", "slow", payment("4111"), () -> {
+                runs.incrementAndGet();
+                return ok("paid twice");
+            }));
+            Thread.sleep(50);
+            finish.countDown();
+            
+            assertThat(first.get(5, TimeUnit.SECONDS).getBody()).isEqualTo("paid");
+            assertThat(again.get(5, TimeUnit.SECONDS).getBody()).isEqualTo("paid");
+            assertThat(runs).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void concurrentRepeatsOfAFinishedExecutionAllReturn() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 500; round++) {
+                String key = "k" + round;
+                service.execute("payments", key, payment("4111"), () -> ok("paid"));
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<ResponseEntity<String>>> repeats = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    repeats.add(executor.submit(() -> {
+                        await(start);
+                        return service.execute("payments", key, payment("4111"), () -> ok("paid twice"));
+                    }));
+                }
+                start.countDown();
+                
+                for (Future<ResponseEntity<String>> repeat : repeats) {
+                    assertThat(repeat.get(5, TimeUnit.SECONDS).getBody()).isEqualTo("paid");
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static PaymentRequest payment(String cardNumber) {
+        PaymentRequest request = new PaymentRequest();
+        request.setAmount(12.5);
+        request.setOrderId(7L);
+        request.setCardNumber(cardNumber);
+        request.setCardCvv("123");
+        return request;
+    }
+    
+    private static ResponseEntity<String> ok(String body) {
+        return ResponseEntity.ok(body);
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,191 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationJournalTest {
+    
+    @TempDir
+    Path dir;
+    
+    private final List<NotificationJournal> opened = new ArrayList<>();
+    
+    @AfterEach
+    void closeJournals() throws Exception {
+        for (NotificationJournal journal : opened) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                // Already closed by the test
+            }
+        }
+    }
+    
+    @Test
+    void openEntriesSurviveARestart() throws Exception {
+        NotificationJournal journal = open(DataSize.ofMegabytes(16), 8);
+        NotificationJournal.Entry delivered = journal.append(NotificationJournal.Channel.EMAIL, "a@example.com", "Hi", "<p>a</p>");
+        journal.append(NotificationJournal.Channel.SMS, "+100", null, "b");
+        NotificationJournal.Entry failed = journal.append(NotificationJournal.Channel.EMAIL, "c@example.com", "Hi", "<p>c</p>");
+        journal.delivered(delivered);
+        journal.failed(failed, new IllegalStateException("smtp down"));
+        journal.close();
+        
+        List<NotificationJournal.Entry> replayed = claimAll(open(DataSize.ofMegabytes(16), 8));
+        
+        assertThat(replayed).extracting(NotificationJournal.Entry::getRecipient).containsExactly("+100", "c@example.com");
+        assertThat(replayed.get(0).getSubject()).isNull();
+        assertThat(replayed.get(0).getChannel()).isEqualTo(NotificationJournal.Channel.SMS);
+        assertThat(replayed.get(1).getBody()).isEqualTo("<p>c</p>");
+        assertThat(replayed.get(1).getAttempts()).isEqualTo(1);
+    }
+    
+    @Test
+    void queueingSurvivesARestart() throws Exception {
+        NotificationJournal journal = open(DataSize.ofMegabytes(16), 8);
+        journal.append(NotificationJournal.Channel.SMS, "+100", null, "shipped", "MARKETING", "order-1");
+        journal.close();
+        
+        List<NotificationJournal.Entry> replayed = claimAll(open(DataSize.ofMegabytes(16), 8));
+        
+        assertThat(replayed).singleElement().satisfies(entry -> {
+            assertThat(entry.getPriority()).isEqualTo("MARKETING");
+            assertThat(entry.getCoalescingKey()).isEqualTo("order-1");
+        });
+    }
+    
+    @Test
+    void tornTailIsTruncatedAndAppendsContinueAfterIt() throws Exception {
+        NotificationJournal journal = open(DataSize.ofMegabytes(16), 8);
+        journal.append(NotificationJournal.Channel.SMS, "+100", null, "first");
+        journal.close();
+        long validLength = Files.size(journalPath());
+        // Half of a record: its length and checksum, then a few bytes of payload
+        try (FileChannel file = FileChannel.open(journalPath(), StandardOpenOption.APPEND)) {
+            file.write(ByteBuffer.allocate(12).putInt(200).putInt(42).putInt(7).flip());
+        }
+        
+        NotificationJournal reopened = open(DataSize.ofMegabytes(16), 8);
+        assertThat(Files.size(journalPath())).isEqualTo(validLength);
+        NotificationJournal.Entry second = reopened.append(NotificationJournal.Channel.SMS, "+200", null, "second");
+        reopened.close();
+        
+        List<NotificationJournal.Entry> replayed = claimAll(open(DataSize.ofMegabytes(16), 8));
+        assertThat(replayed).extracting(NotificationJournal.Entry::getBody).containsExactly("first", "second");
+        assertThat(second.getId()).isEqualTo(replayed.get(0).getId() + 1);
+    }
+    
+    @Test
+    void replayStopsAtACorruptRecord() throws Exception {
+        NotificationJournal journal = open(DataSize.ofMegabytes(16), 8);
+        journal.append(NotificationJournal.Channel.SMS, "+100", null, "first");
+        journal.close();
+        long firstLength = Files.size(journalPath());
+        journal = open(DataSize.ofMegabytes(16), 8);
+        journal.append(NotificationJournal.Channel.SMS, "+200", null, "second");
+        journal.close();
+        byte[] bytes = Files.readAllBytes(journalPath());
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(journalPath(), bytes);
+        
+        List<NotificationJournal.Entry> replayed = claimAll(open(DataSize.ofMegabytes(16), 8));
+        
+        assertThat(replayed).extracting(NotificationJournal.Entry::getBody).containsExactly("first");
+        assertThat(Files.size(journalPath())).isEqualTo(firstLength);
+    }
+    
+    @Test
+    void compactionKeepsOnlyOpenEntries() throws Exception {
+        NotificationJournal journal = open(DataSize.ofBytes(512), 8);
+        List<NotificationJournal.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            entries.add(journal.append(NotificationJournal.Channel.EMAIL, "user" + i + "@example.com", "Hi", "x".repeat(100)));
+        }
+        for (int i = 0; i < 19; i++) {
+            journal.delivered(entries.get(i));
+        }
+        journal.close();
+        
+        assertThat((long) journal.getMetrics().get("compactions")).isPositive();
+        assertThat(Files.size(journalPath())).isLessThan(512);
+        List<NotificationJournal.Entry> replayed = claimAll(open(DataSize.ofBytes(512), 8));
+        assertThat(replayed).extracting(NotificationJournal.Entry::getRecipient).containsExactly("user19@example.com");
+    }
+    
+    @Test
+    void entryIsDeadAfterTheLastAttempt() throws Exception {
+        NotificationJournal journal = open(DataSize.ofMegabytes(16), 2);
+        NotificationJournal.Entry entry = journal.append(NotificationJournal.Channel.SMS, "+100", null, "hi");
+        
+        journal.failed(entry, new IllegalStateException("first"));
+        assertThat(journal.claimDue(10)).containsExactly(entry);
+        journal.failed(entry, new IllegalStateException("second"));
+        
+        assertThat(journal.claimDue(10)).isEmpty();
+        assertThat(journal.getMetrics()).containsEntry("dead", 1L).containsEntry("open", 0);
+        journal.close();
+        assertThat(claimAll(open(DataSize.ofMegabytes(16), 2))).isEmpty();
+    }
+    
+    @Test
+    void failedEntryWaitsForItsBackoff() throws Exception {
+        NotificationJournal journal = new NotificationJournal(journalPath().toString(), false, 100, DataSize.ofMegabytes(16),
+                8, Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofMinutes(10));
+        journal.open();
+        opened.add(journal);
+        NotificationJournal.Entry entry = journal.append(NotificationJournal.Channel.SMS, "+100", null, "hi");
+        
+        journal.failed(entry, new IllegalStateException("busy"));
+        
+        assertThat(journal.claimDue(10)).isEmpty();
+    }
+    
+    @Test
+    void entryThatNeverReportsBackIsClaimedAgain() throws Exception {
+        NotificationJournal journal = new NotificationJournal(journalPath().toString(), false, 100, DataSize.ofMegabytes(16),
+                8, Duration.ZERO, Duration.ZERO, Duration.ofMillis(200));
+        journal.open();
+        opened.add(journal);
+        NotificationJournal.Entry entry = journal.append(NotificationJournal.Channel.EMAIL, "a@example.com", "Hi", "<p>a</p>");
+        
+        assertThat(journal.claimDue(10)).isEmpty();
+        Thread.sleep(300);
+        
+        assertThat(journal.claimDue(10)).containsExactly(entry);
+        assertThat(journal.claimDue(10)).isEmpty();
+        assertThat(journal.getMetrics()).containsEntry("reclaimed", 1L);
+    }
+    
+    private NotificationJournal open(DataSize compactThreshold, int maxAttempts) throws IOException {
+        NotificationJournal journal = new NotificationJournal(journalPath().toString(), false, 100, compactThreshold,
+                maxAttempts, Duration.ZERO, Duration.ZERO, Duration.ofMinutes(10));
+        journal.open();
+        opened.add(journal);
+        return journal;
+    }
+    
+    private static List<NotificationJournal.Entry> claimAll(NotificationJournal journal) {
+        List<NotificationJournal.Entry> entries = new ArrayList<>(journal.claimDue(Integer.MAX_VALUE));
+        entries.sort(Comparator.comparingLong(NotificationJournal.Entry::getId));
+        return entries;
+    }
+    
+    private Path journalPath() {
+        return dir.resolve("journal.log");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class OrderArchiveServiceTest {
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private JdbcTemplate jdbcTemplate;
+    private User user;
+    private Product product;
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // createArchiveTables() relies on MySQL's CREATE TABLE ... LIKE and information_schema
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS orders_archive AS SELECT * FROM orders WHERE 1 = 0");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS order_items_archive AS SELECT * FROM order_items WHERE 1 = 0");
+        
+        user = new User();
+        user.setName("Ada");
+        user.setEmail("ada@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        product = new Product();
+        product.setName("Lamp");
+        product.setCategory("Home");
+        product.setPrice(10.0);
+        product.setStockQuantity(5);
+        entityManager.persist(product);
+    }
+    
+    @Test
+    void oldFinishedOrdersMoveInBatchesWithTheirItems() {
+        LocalDateTime old = LocalDateTime.now().minusYears(1);
+        List<Long> finished = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            finished.add(persistOrder(Order.OrderStatus.DELIVERED, old));
+            finished.add(persistOrder(Order.OrderStatus.CANCELLED, old));
+        }
+        Long open = persistOrder(Order.OrderStatus.PENDING, old);
+        Long recent = persistOrder(Order.OrderStatus.DELIVERED, LocalDateTime.now().minusDays(1));
+        OrderArchiveService archiveService = archiveService(true, 4);
+        
+        archiveService.archiveOldOrders();
+        
+        assertThat(ids("orders")).containsExactlyInAnyOrder(open, recent);
+        assertThat(ids("orders_archive")).containsExactlyInAnyOrderElementsOf(finished);
+        assertThat(orderIdsOfItems("order_items")).containsExactlyInAnyOrder(open, recent);
+        assertThat(orderIdsOfItems("order_items_archive")).containsExactlyInAnyOrderElementsOf(finished);
+        assertThat(archiveService.getMetrics()).containsEntry("archivedSinceStart", 6L);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM orders_archive WHERE id = ?", String.class,
+                finished.get(1))).isEqualTo("CANCELLED");
+    }
+    
+    @Test
+    void disabledArchiverLeavesOrdersAlone() {
+        Long delivered = persistOrder(Order.OrderStatus.DELIVERED, LocalDateTime.now().minusYears(1));
+        
+        archiveService(false, 4).archiveOldOrders();
+        
+        assertThat(ids("orders")).containsExactly(delivered);
+        assertThat(ids("orders_archive")).isEmpty();
+    }
+    
+    private OrderArchiveService archiveService(boolean enabled, int batchSize) {
+        OrderArchiveService archiveService = new OrderArchiveService(new NamedParameterJdbcTemplate(dataSource),
+                transactionManager, null, enabled, Duration.ofDays(180), batchSize);
+        ReflectionTestUtils.setField(archiveService, "orderColumns", columns("ORDERS"));
+        ReflectionTestUtils.setField(archiveService, "itemColumns", columns("ORDER_ITEMS"));
+        return archiveService;
+    }
+    
+    private Long persistOrder(Order.OrderStatus status, LocalDateTime createdAt) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setShippingAddress("1 Main St");
+        order.setStatus(status);
+        order.setTotalAmount(10.0);
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(1);
+        item.setPrice(10.0);
+        order.getItems().add(item);
+        entityManager.persist(order);
+        entityManager.flush();
+        entityManager.clear();
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt), order.getId());
+        return order.getId();
+    }
+    
+    private String columns(String table) {
+        return String.join(", ", jdbcTemplate.queryForList("SELECT column_name FROM information_schema.columns "
+                + "WHERE table_schema = 'PUBLIC' AND table_name = ? ORDER BY ordinal_position", String.class, table));
+    }
+    
+    private List<Long> ids(String table) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table, Long.class);
+    }
+    
+    private List<Long> orderIdsOfItems(String table) {
+        return jdbcTemplate.queryForList("SELECT order_id FROM " + table, Long.class);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class OrderExportServiceTest {
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    private OrderExportService exportService;
+    private JdbcTemplate jdbcTemplate;
+    private Long hotOrderId;
+    
+    @BeforeEach
+    void setUp() {
+        exportService = new OrderExportService(dataSource, new ObjectMapper(), 100, Duration.ofDays(180));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // OrderArchiveService creates these with MySQL's CREATE TABLE ... LIKE
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS orders_archive AS SELECT * FROM orders WHERE 1 = 0");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS order_items_archive AS SELECT * FROM order_items WHERE 1 = 0");
+        
+        User user = new User();
+        user.setName("Ada");
+        user.setEmail("ada@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        Order order = new Order();
+        order.setUser(user);
+        order.setShippingAddress("1 Main St");
+        order.setTotalAmount(20.0);
+        entityManager.persist(order);
+        entityManager.flush();
+        hotOrderId = order.getId();
+        
+        jdbcTemplate.update("INSERT INTO orders_archive (id, user_id, total_amount, status, shipping_address, created_at) "
+                        + "VALUES (?, ?, ?, 'DELIVERED', 'Old St', ?)",
+                hotOrderId + 1000, user.getId(), 35.0, Timestamp.valueOf(LocalDateTime.now().minusYears(2)));
+        jdbcTemplate.update("INSERT INTO order_items_archive (id, order_id, product_id, quantity, price) VALUES (1, ?, 1, 2, 17.5)",
+                hotOrderId + 1000);
+    }
+    
+    @Test
+    void openRangeIncludesArchivedOrders() throws Exception {
+        List<String> lines = export(null, null);
+        
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(1)).startsWith(hotOrderId + ",");
+        assertThat(lines.get(2)).startsWith((hotOrderId + 1000) + ",").contains(",DELIVERED,35.0,1,");
+    }
+    
+    @Test
+    void recentRangeStaysOnTheHotTables() throws Exception {
+        List<String> lines = export(LocalDateTime.now().minusDays(1), null);
+        
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(1)).startsWith(hotOrderId + ",");
+    }
+    
+    @Test
+    void filtersApplyToTheArchiveToo() throws Exception {
+        List<String> lines = export(null, LocalDateTime.now().minusYears(1));
+        
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(1)).startsWith((hotOrderId + 1000) + ",");
+    }
+    
+    private List<String> export(LocalDateTime from, LocalDateTime to) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(out, OrderExportService.Format.CSV, from, to, null);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+}
\ No newline at end of file
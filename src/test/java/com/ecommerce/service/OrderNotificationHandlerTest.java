@@ -0,0 +1,77 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OutboxEvent;
+import com.ecommerce.model.User;
+import com.ecommerce.template.RenderedEmail;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class OrderNotificationHandlerTest {
+    
+    private final EmailService emailService = mock(EmailService.class);
+    private final SmsService smsService = mock(SmsService.class);
+    private final OrderNotificationHandler handler = new OrderNotificationHandler(emailService, smsService, new ObjectMapper());
+    
+    @Test
+    void statusChangeIsRenderedFromTheEventNotTheCurrentOrder() {
+        // The order moved on to DELIVERED before the SHIPPED event went out
+        Order order = order(Order.OrderStatus.DELIVERED);
+        
+        handler.handle(event(OutboxEvent.EventType.ORDER_STATUS_CHANGED, "{\"from\":\"CONFIRMED\",\"to\":\"SHIPPED\"}"), order);
+        
+        verify(emailService).sendOrderStatusUpdateEmail(order.getUser(), order, Order.OrderStatus.SHIPPED);
+        verify(smsService).sendOrderStatusUpdateSms(order.getUser(), order, Order.OrderStatus.SHIPPED);
+    }
+    
+    @Test
+    void paymentIsReportedAsConfirmed() {
+        Order order = order(Order.OrderStatus.SHIPPED);
+        
+        handler.handle(event(OutboxEvent.EventType.ORDER_PAID, "{\"paymentId\":\"pay-1\"}"), order);
+        
+        verify(emailService).sendOrderStatusUpdateEmail(order.getUser(), order, Order.OrderStatus.CONFIRMED);
+    }
+    
+    @Test
+    void eventWithoutTargetFallsBackToTheCurrentStatus() {
+        Order order = order(Order.OrderStatus.SHIPPED);
+        
+        handler.handle(event(OutboxEvent.EventType.ORDER_STATUS_CHANGED, null), order);
+        
+        verify(emailService).sendOrderStatusUpdateEmail(order.getUser(), order, Order.OrderStatus.SHIPPED);
+    }
+    
+    @Test
+    void emailShowsTheGivenStatus() {
+        Order order = order(Order.OrderStatus.DELIVERED);
+        
+        RenderedEmail email = new EmailTemplates("en", "USD").orderStatusUpdate(order.getUser(), order, Order.OrderStatus.SHIPPED);
+        
+        assertThat(email.getHtml()).contains("SHIPPED").doesNotContain("DELIVERED");
+    }
+    
+    private static OutboxEvent event(OutboxEvent.EventType type, String payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(type);
+        event.setOrderId(7L);
+        event.setPayload(payload);
+        return event;
+    }
+    
+    private static Order order(Order.OrderStatus status) {
+        User user = new User();
+        user.setId(3L);
+        user.setName("Ada");
+        user.setEmail("ada@example.com");
+        Order order = new Order();
+        order.setId(7L);
+        order.setUser(user);
+        order.setStatus(status);
+        return order;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.PaginationProperties;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OutboxEvent;
+import com.ecommerce.model.User;
+import com.ecommerce.pricing.PricingEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Payment confirmation only moves PENDING orders, and a repeated confirmation
+ * with the same payment id is a no-op
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@Import(OrderService.class)
+class OrderPaymentTest {
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @MockBean
+    private CartService cartService;
+    
+    @MockBean
+    private UserService userService;
+    
+    @MockBean
+    private PaginationProperties pagination;
+    
+    @MockBean
+    private StockReservationService stockReservationService;
+    
+    @MockBean
+    private OutboxService outboxService;
+    
+    @MockBean
+    private PricingEngine pricingEngine;
+    
+    @MockBean
+    private SalesRollupService salesRollupService;
+    
+    @Test
+    void confirmsPendingOrderOnce() {
+        Long orderId = persistOrder(Order.OrderStatus.PENDING);
+        
+        Order paid = orderService.updatePaymentId(orderId, "pay-1");
+        
+        assertThat(paid.getStatus()).isEqualTo(Order.OrderStatus.CONFIRMED);
+        assertThat(paid.getPaymentId()).isEqualTo("pay-1");
+        verify(outboxService).record(OutboxEvent.EventType.ORDER_PAID, orderId, Map.of("paymentId", "pay-1"));
+    }
+    
+    @Test
+    void repeatedConfirmationIsIdempotent() {
+        Long orderId = persistOrder(Order.OrderStatus.PENDING);
+        orderService.updatePaymentId(orderId, "pay-1");
+        
+        Order again = orderService.updatePaymentId(orderId, "pay-1");
+        
+        assertThat(again.getStatus()).isEqualTo(Order.OrderStatus.CONFIRMED);
+        verify(outboxService, times(1)).record(any(), anyLong(), any());
+    }
+    
+    @Test
+    void laterStatusIsNotMovedBackToConfirmed() {
+        Long orderId = persistOrder(Order.OrderStatus.PENDING);
+        orderService.updatePaymentId(orderId, "pay-1");
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Order o SET o.status = SHIPPED WHERE o.id = :id")
+                .setParameter("id", orderId)
+                .executeUpdate();
+        
+        Order again = orderService.updatePaymentId(orderId, "pay-1");
+        
+        assertThat(again.getStatus()).isEqualTo(Order.OrderStatus.SHIPPED);
+        verify(outboxService, times(1)).record(any(), anyLong(), any());
+    }
+    
+    @Test
+    void differentPaymentForPaidOrderIsRejected() {
+        Long orderId = persistOrder(Order.OrderStatus.PENDING);
+        orderService.updatePaymentId(orderId, "pay-1");
+        
+        assertThatThrownBy(() -> orderService.updatePaymentId(orderId, "pay-2"))
+                .hasMessageContaining("already paid");
+        assertThat(entityManager.find(Order.class, orderId).getPaymentId()).isEqualTo("pay-1");
+        verify(outboxService, times(1)).record(any(), anyLong(), any());
+    }
+    
+    @Test
+    void cancelledOrderIsRejected() {
+        Long orderId = persistOrder(Order.OrderStatus.CANCELLED);
+        
+        assertThatThrownBy(() -> orderService.updatePaymentId(orderId, "pay-1"))
+                .hasMessageContaining("CANCELLED");
+        verifyNoInteractions(outboxService);
+    }
+    
+    private Long persistOrder(Order.OrderStatus status) {
+        User user = new User();
+        user.setName("buyer");
+        user.setEmail("buyer-" + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        Order order = new Order();
+        order.setUser(user);
+        order.setShippingAddress("1 Main St");
+        order.setTotalAmount(30.0);
+        order.setStatus(status);
+        entityManager.persist(order);
+        entityManager.flush();
+        entityManager.clear();
+        return order.getId();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductImportResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductImportServiceTest {
+    
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ProductService productService = mock(ProductService.class);
+    private ProductImportService importService;
+    
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        importService = new ProductImportService(jdbcTemplate, transactionManager,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), productService);
+        ReflectionTestUtils.setField(importService, "batchSize", 2);
+        ReflectionTestUtils.setField(importService, "maxReportedErrors", 10);
+    }
+    
+    @Test
+    void reportsThePhysicalLineOfRecordsAfterMultiLineFields() throws IOException {
+        String csv = "name,description,price,category,stockQuantity\n"
+                + "Lamp,\"Warm light\nfor reading\",20,Home,3\n"
+                + "Rug,\"Hand made\n\nwool\",not-a-price,Home,1\n"
+                + "Sofa,,,Home,1\n";
+        
+        ProductImportResult result = importService.importCsv(stream(csv));
+        
+        assertThat(result.getProcessed()).isEqualTo(3);
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(ProductImportResult.RowError::getLine).containsExactly(4L, 7L);
+        verify(productService).reloadCatalog();
+    }
+    
+    @Test
+    void reloadsTheCatalogWhenTheUploadBreaksOffAfterCommittedBatches() {
+        InputStream broken = new SequenceInputStream(
+                stream("{\"name\":\"A\",\"price\":1,\"category\":\"X\",\"stockQuantity\":1}\n"
+                        + "{\"name\":\"B\",\"price\":2,\"category\":\"X\",\"stockQuantity\":1}\n"),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("connection reset");
+                    }
+                });
+        
+        assertThatThrownBy(() -> importService.importNdjson(broken)).isInstanceOf(IOException.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList(), eq(2), any());
+        verify(productService).reloadCatalog();
+    }
+    
+    @Test
+    void skipsTheReloadWhenNothingWasImported() throws IOException {
+        ProductImportResult result = importService.importNdjson(stream("{\"name\":\"\"}\nnot json\n"));
+        
+        assertThat(result.getFailed()).isEqualTo(2);
+        verify(productService, never()).reloadCatalog();
+    }
+    
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
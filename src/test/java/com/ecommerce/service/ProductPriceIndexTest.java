@@ -0,0 +1,66 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductPriceIndexTest {
+    
+    private final ProductPriceIndex index = new ProductPriceIndex();
+    
+    @BeforeEach
+    void setUp() {
+        index.rebuild(List.of(
+                priced(1L, "Electronics", 100.0),
+                priced(2L, "Electronics", 80.0),
+                priced(3L, "Electronics", 125.0),
+                priced(4L, "Electronics", 60.0),
+                priced(5L, "Electronics", 300.0),
+                priced(6L, "Home", 95.0)));
+    }
+    
+    @Test
+    void returnsNearestPricesWithinTheBandExcludingTheProductItself() {
+        assertThat(index.findNearestInPriceRange("electronics", 100.0, 50.0, 150.0, 1L, 10))
+                .containsExactly(2L, 3L, 4L);
+    }
+    
+    @Test
+    void honoursTheLimit() {
+        assertThat(index.findNearestInPriceRange("Electronics", 100.0, 0.0, 1000.0, 1L, 2))
+                .containsExactly(2L, 3L);
+        assertThat(index.findNearestInPriceRange("Electronics", 100.0, 0.0, 1000.0, 1L, 0)).isEmpty();
+        assertThat(index.findNearestInPriceRange("Garden", 100.0, 0.0, 1000.0, 1L, 5)).isEmpty();
+    }
+    
+    @Test
+    void repositionsProductsWhosePriceOrCategoryChanged() {
+        index.onProductSaved(priced(5L, "Electronics", 101.0));
+        index.onProductSaved(priced(2L, "Home", 80.0));
+        
+        assertThat(index.findNearestInPriceRange("Electronics", 100.0, 50.0, 150.0, 1L, 10))
+                .containsExactly(5L, 3L, 4L);
+        assertThat(index.findNearestInPriceRange("Home", 90.0, 0.0, 200.0, -1L, 10))
+                .containsExactly(6L, 2L);
+    }
+    
+    @Test
+    void dropsDeletedProducts() {
+        index.onProductDeleted(6L);
+        index.onProductDeleted(2L);
+        
+        assertThat(index.findNearestInPriceRange("Home", 95.0, 0.0, 200.0, -1L, 10)).isEmpty();
+        assertThat(index.findNearestInPriceRange("Electronics", 100.0, 50.0, 150.0, 1L, 10))
+                .containsExactly(3L, 4L);
+    }
+    
+    private static Product priced(Long id, String category, double price) {
+        Product product = ProductSearchIndexTest.product(id, "Product " + id, category, null);
+        product.setPrice(price);
+        return product;
+    }
+}
\ No newline at end of file
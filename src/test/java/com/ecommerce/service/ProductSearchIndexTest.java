@@ -0,0 +1,83 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTest {
+    
+    private final ProductSearchIndex index = new ProductSearchIndex();
+    
+    @BeforeEach
+    void setUp() {
+        index.rebuild(List.of(
+                product(1L, "Gaming Laptop", "Electronics", "Fast laptop with RGB keyboard"),
+                product(2L, "Laptop Bag", "Accessories", "Fits 15 inch laptops"),
+                product(3L, "Wireless Mouse", "Electronics", "Ergonomic mouse"),
+                product(4L, "Desk Lamp", "Home", "LED lamp for your laptop desk")));
+    }
+    
+    @Test
+    void tokenizesOnNonAlphanumericsAndLowerCases() {
+        assertThat(ProductSearchIndex.tokenize("USB-C Hub, 4K/60Hz")).containsExactly("usb", "c", "hub", "4k", "60hz");
+        assertThat(ProductSearchIndex.tokenize(null)).isEmpty();
+        assertThat(ProductSearchIndex.tokenize("  --  ")).isEmpty();
+    }
+    
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        assertThat(ids(index.search("laptop"))).containsExactly(1L, 2L, 4L);
+    }
+    
+    @Test
+    void matchesQueryTokensAsPrefixes() {
+        assertThat(ids(index.search("lap"))).containsExactlyInAnyOrder(1L, 2L, 4L);
+        assertThat(ids(index.search("ELECTRO"))).containsExactlyInAnyOrder(1L, 3L);
+    }
+    
+    @Test
+    void requiresEveryQueryToken() {
+        assertThat(ids(index.search("laptop electronics"))).containsExactly(1L);
+        assertThat(index.search("laptop garden")).isEmpty();
+        assertThat(index.search("")).isEmpty();
+    }
+    
+    @Test
+    void reindexesSavedProductsAndDropsDeletedOnes() {
+        index.onProductSaved(product(3L, "Bluetooth Speaker", "Audio", null));
+        assertThat(index.search("mouse")).isEmpty();
+        assertThat(ids(index.search("speaker"))).containsExactly(3L);
+        
+        index.onProductDeleted(1L);
+        assertThat(ids(index.search("gaming"))).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+    
+    @Test
+    void returnsTheLatestSavedInstance() {
+        Product updated = product(2L, "Laptop Bag", "Accessories", "Fits 15 inch laptops");
+        updated.setStockQuantity(0);
+        index.onProductSaved(updated);
+        
+        assertThat(index.search("bag")).singleElement().isSameAs(updated);
+    }
+    
+    static Product product(Long id, String name, String category, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        product.setDescription(description);
+        product.setPrice(10.0);
+        product.setStockQuantity(5);
+        return product;
+    }
+    
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.OrderCancelledEvent;
+import com.ecommerce.event.OrderCreatedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SalesPopularityTrackerTest {
+    
+    private final SalesPopularityTracker tracker = new SalesPopularityTracker(mock(JdbcTemplate.class), 10);
+    
+    @Test
+    void ranksProductsByUnitsPerWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        tracker.onOrderCreated(created(1L, now, 1L, 2, 2L, 5));
+        tracker.onOrderCreated(created(2L, now.minusHours(3), 3L, 9));
+        tracker.refreshRankings();
+        
+        assertThat(tracker.getTopProductIds(SalesPopularityTracker.Window.LAST_HOUR, 10)).containsExactly(2L, 1L);
+        assertThat(tracker.getTopProductIds(SalesPopularityTracker.Window.LAST_DAY, 10)).containsExactly(3L, 2L, 1L);
+        assertThat(tracker.getTopProductIds(SalesPopularityTracker.Window.LAST_DAY, 1)).containsExactly(3L);
+    }
+    
+    @Test
+    void cancelledOrderIsSubtracted() {
+        LocalDateTime now = LocalDateTime.now();
+        tracker.onOrderCreated(created(1L, now, 1L, 2, 2L, 5));
+        tracker.onOrderCreated(created(2L, now, 1L, 4));
+        
+        tracker.onOrderCancelled(cancelled(1L, now, 1L, 2, 2L, 5));
+        tracker.refreshRankings();
+        
+        assertThat(tracker.getTopProductIds(SalesPopularityTracker.Window.LAST_HOUR, 10)).containsExactly(1L);
+        assertThat(tracker.getTopProductIds(SalesPopularityTracker.Window.LAST_WEEK, 10)).containsExactly(1L);
+    }
+    
+    @Test
+    void salesOlderThanAWeekAreIgnored() {
+        tracker.onOrderCreated(created(1L, LocalDateTime.now().minusDays(8), 1L, 2));
+        tracker.refreshRankings();
+        
+        assertThat(tracker.getTopProductIds(SalesPopularityTracker.Window.LAST_WEEK, 10)).isEmpty();
+    }
+    
+    /**
+     * @param productAndQuantity product id, quantity, product id, quantity, ...
+     */
+    private static OrderCreatedEvent created(Long orderId, LocalDateTime createdAt, long... productAndQuantity) {
+        return new OrderCreatedEvent(orderId, 7L, createdAt, lines(productAndQuantity));
+    }
+    
+    private static OrderCancelledEvent cancelled(Long orderId, LocalDateTime createdAt, long... productAndQuantity) {
+        return new OrderCancelledEvent(orderId, createdAt, lines(productAndQuantity));
+    }
+    
+    private static List<OrderCreatedEvent.Line> lines(long... productAndQuantity) {
+        List<OrderCreatedEvent.Line> lines = new ArrayList<>();
+        for (int i = 0; i < productAndQuantity.length; i += 2) {
+            lines.add(new OrderCreatedEvent.Line(productAndQuantity[i], "Home", (int) productAndQuantity[i + 1], 10.0));
+        }
+        return lines;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,191 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.SalesRollup;
+import com.ecommerce.repository.ProductSalesRollupRepository;
+import com.ecommerce.repository.SalesRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SalesRollupServiceTest {
+    
+    private static final LocalDateTime PLACED = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusMinutes(10);
+    
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private TransactionTemplate orderTransaction;
+    private SalesRollupService service;
+    
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = spy(new JdbcTemplate(dataSource));
+        jdbcTemplate.execute("CREATE TABLE sales_rollups (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "granularity VARCHAR(10) NOT NULL, period_start TIMESTAMP NOT NULL, order_count BIGINT NOT NULL, "
+                + "units BIGINT NOT NULL, revenue_cents BIGINT NOT NULL, UNIQUE (granularity, period_start))");
+        jdbcTemplate.execute("CREATE TABLE product_sales_rollups (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "granularity VARCHAR(10) NOT NULL, period_start TIMESTAMP NOT NULL, product_id BIGINT NOT NULL, "
+                + "category VARCHAR(255), units BIGINT NOT NULL, revenue_cents BIGINT NOT NULL, "
+                + "UNIQUE (granularity, period_start, product_id))");
+        jdbcTemplate.execute("CREATE TABLE sales_rollup_deltas (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "granularity VARCHAR(10) NOT NULL, period_start TIMESTAMP NOT NULL, product_id BIGINT, "
+                + "category VARCHAR(255), order_count BIGINT NOT NULL, units BIGINT NOT NULL, "
+                + "revenue_cents BIGINT NOT NULL)");
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        orderTransaction = new TransactionTemplate(transactionManager);
+        service = newService();
+    }
+    
+    @Test
+    void deltasCommitAndRollBackWithTheirOrder() {
+        orderTransaction.executeWithoutResult(status -> service.recordPlaced(order(1L, 2, 10.0)));
+        orderTransaction.executeWithoutResult(status -> {
+            service.recordPlaced(order(2L, 5, 10.0));
+            status.setRollbackOnly();
+        });
+        
+        // One period row and one product row per granularity
+        assertThat(deltaCount()).isEqualTo(4);
+        
+        service.flush();
+        
+        assertThat(deltaCount()).isZero();
+        assertThat(hourRow()).containsEntry("ORDER_COUNT", 1L).containsEntry("UNITS", 2L).containsEntry("REVENUE_CENTS", 2000L);
+        assertThat(jdbcTemplate.queryForObject("SELECT units FROM product_sales_rollups WHERE granularity = 'DAY' "
+                + "AND product_id = 7", Long.class)).isEqualTo(2L);
+    }
+    
+    @Test
+    void queuedDeltasSurviveARestart() {
+        orderTransaction.executeWithoutResult(status -> service.recordPlaced(order(1L, 2, 10.0)));
+        
+        newService().flush();
+        
+        assertThat(deltaCount()).isZero();
+        assertThat(hourRow()).containsEntry("ORDER_COUNT", 1L);
+    }
+    
+    @Test
+    void flushMergesOrdersOfTheSamePeriod() {
+        orderTransaction.executeWithoutResult(status -> service.recordPlaced(order(1L, 2, 10.0)));
+        orderTransaction.executeWithoutResult(status -> service.recordPlaced(order(2L, 1, 10.0)));
+        orderTransaction.executeWithoutResult(status -> service.recordRemoved(List.of(order(3L, 4, 10.0))));
+        
+        service.flush();
+        service.flush();
+        
+        // Two placed and one cancelled order: 1 order, -1 unit, -10.00
+        assertThat(hourRow()).containsEntry("ORDER_COUNT", 1L).containsEntry("UNITS", -1L).containsEntry("REVENUE_CENTS", -1000L);
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("INSERT INTO sales_rollups"), anyList());
+    }
+    
+    @Test
+    void failedFlushKeepsTheDeltasForTheNextOne() {
+        orderTransaction.executeWithoutResult(status -> service.recordPlaced(order(1L, 2, 10.0)));
+        doThrow(new QueryTimeoutException("lock wait timeout")).doCallRealMethod()
+                .when(jdbcTemplate).batchUpdate(startsWith("INSERT INTO product_sales_rollups"), anyList());
+        
+        service.flush();
+        
+        assertThat(deltaCount()).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sales_rollups", Long.class)).isZero();
+        
+        orderTransaction.executeWithoutResult(status -> service.recordPlaced(order(2L, 1, 10.0)));
+        service.flush();
+        
+        assertThat(deltaCount()).isZero();
+        assertThat(hourRow()).containsEntry("ORDER_COUNT", 2L).containsEntry("UNITS", 3L).containsEntry("REVENUE_CENTS", 3000L);
+    }
+    
+    @Test
+    void backfillLostToAnotherInstanceDoesNotFailStartup() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        PlatformTransactionManager transactions = mock(PlatformTransactionManager.class);
+        when(transactions.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(jdbc.update(anyString(), ArgumentMatchers.<Object>any())).thenThrow(new DuplicateKeyException("uk_sales_rollups_period"));
+        SalesRollupService starting = new SalesRollupService(jdbc, mock(SalesRollupRepository.class),
+                mock(ProductSalesRollupRepository.class), transactions, null, null, Duration.ofDays(90), Duration.ofDays(30));
+        
+        assertThatCode(starting::backfill).doesNotThrowAnyException();
+        verify(transactions).rollback(any());
+    }
+    
+    @Test
+    void recentRangesUseTheRowsMatchingTheirAlignment() {
+        LocalDateTime today = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
+        
+        assertThat(service.resolve(today.minusDays(7), today, null).granularity()).isEqualTo(SalesRollup.Granularity.DAY);
+        SalesRollupService.Range hourly = service.resolve(today.minusDays(7).plusHours(6), today.plusHours(3), null);
+        assertThat(hourly.granularity()).isEqualTo(SalesRollup.Granularity.HOUR);
+        assertThat(hourly.start()).isEqualTo(today.minusDays(7).plusHours(6));
+    }
+    
+    @Test
+    void rangesPastTheHourlyRetentionFallBackToWholeDays() {
+        LocalDateTime today = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
+        
+        SalesRollupService.Range range = service.resolve(today.minusDays(120).plusHours(6), today.plusHours(3), null);
+        
+        assertThat(range.granularity()).isEqualTo(SalesRollup.Granularity.DAY);
+        assertThat(range.start()).isEqualTo(today.minusDays(120));
+        assertThat(range.end()).isEqualTo(today.plusDays(1));
+        assertThat(service.resolve(today.minusDays(120), today, SalesRollup.Granularity.HOUR).granularity())
+                .isEqualTo(SalesRollup.Granularity.DAY);
+    }
+    
+    private SalesRollupService newService() {
+        return new SalesRollupService(jdbcTemplate, mock(SalesRollupRepository.class),
+                mock(ProductSalesRollupRepository.class), transactionManager,
+                null, null, Duration.ofDays(90), Duration.ofDays(30));
+    }
+    
+    private long deltaCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sales_rollup_deltas", Long.class);
+    }
+    
+    private Map<String, Object> hourRow() {
+        return jdbcTemplate.queryForMap("SELECT order_count, units, revenue_cents FROM sales_rollups "
+                + "WHERE granularity = 'HOUR' AND period_start = ?", Timestamp.valueOf(PLACED.truncatedTo(ChronoUnit.HOURS)));
+    }
+    
+    private static Order order(Long id, int quantity, double price) {
+        Product product = new Product();
+        product.setId(7L);
+        product.setCategory("Books");
+        Order order = new Order();
+        order.setId(id);
+        order.setCreatedAt(PLACED);
+        order.setTotalAmount(quantity * price);
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setPrice(price);
+        order.getItems().add(item);
+        return order;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.NotificationExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmsDispatcherTest {
+    
+    @TempDir
+    Path dir;
+    
+    private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+    private NotificationJournal journal;
+    private NotificationExecutor executor;
+    private SmsDispatcher dispatcher;
+    
+    @AfterEach
+    void stop() throws Exception {
+        if (dispatcher == null) {
+            return;
+        }
+        dispatcher.stop();
+        executor.destroy();
+        journal.close();
+    }
+    
+    @Test
+    void throttledSenderDoesNotHoldUpOthers() throws Exception {
+        start(0.001, Duration.ofMinutes(1));
+        dispatcher.throttled("+1");
+        
+        submit(SmsDispatcher.Priority.TRANSACTIONAL, null, "+1", "from one");
+        submit(SmsDispatcher.Priority.TRANSACTIONAL, null, "+2", "from two");
+        
+        assertThat(sent.poll(5, TimeUnit.SECONDS)).isEqualTo("from two");
+        assertThat(sent.poll(300, TimeUnit.MILLISECONDS)).isNull();
+    }
+    
+    @Test
+    void senderOutOfTokensDoesNotHoldUpOthers() throws Exception {
+        start(0.001, Duration.ofMinutes(1));
+        
+        submit(SmsDispatcher.Priority.TRANSACTIONAL, null, "+1", "first from one");
+        submit(SmsDispatcher.Priority.TRANSACTIONAL, null, "+1", "second from one");
+        submit(SmsDispatcher.Priority.MARKETING, null, "+2", "from two");
+        
+        assertThat(new String[] {sent.poll(5, TimeUnit.SECONDS), sent.poll(5, TimeUnit.SECONDS)})
+                .containsExactlyInAnyOrder("first from one", "from two");
+        assertThat(sent.poll(300, TimeUnit.MILLISECONDS)).isNull();
+    }
+    
+    @Test
+    void transactionalGoesBeforeMarketing() throws Exception {
+        start(100, Duration.ofMillis(300));
+        dispatcher.throttled("+1");
+        
+        submit(SmsDispatcher.Priority.MARKETING, null, "+1", "promotion");
+        submit(SmsDispatcher.Priority.TRANSACTIONAL, null, "+1", "otp");
+        
+        assertThat(sent.poll(5, TimeUnit.SECONDS)).isEqualTo("otp");
+        assertThat(sent.poll(5, TimeUnit.SECONDS)).isEqualTo("promotion");
+    }
+    
+    @Test
+    void newerMessageReplacesAQueuedOneWithTheSameKey() throws Exception {
+        start(100, Duration.ofMillis(300));
+        dispatcher.throttled("+1");
+        
+        submit(SmsDispatcher.Priority.TRANSACTIONAL, "order-1", "+1", "shipped");
+        submit(SmsDispatcher.Priority.TRANSACTIONAL, "order-1", "+1", "delivered");
+        
+        assertThat(sent.poll(5, TimeUnit.SECONDS)).isEqualTo("delivered");
+        assertThat(sent.poll(300, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(dispatcher.getMetrics()).containsEntry("coalesced", 1L);
+        assertThat(journal.getMetrics()).containsEntry("discarded", 1L);
+    }
+    
+    @Test
+    void bucketAllowsABurstThenPacesAtTheRate() {
+        SmsDispatcher.TokenBucket bucket = new SmsDispatcher.TokenBucket(1, 3);
+        
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isZero();
+        
+        assertThat(bucket.tryAcquire()).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+    
+    @Test
+    void pausedBucketWaitsOutThePause() {
+        SmsDispatcher.TokenBucket bucket = new SmsDispatcher.TokenBucket(1000, 5);
+        
+        bucket.pause(TimeUnit.SECONDS.toNanos(10));
+        
+        assertThat(bucket.tryAcquire()).isGreaterThan(TimeUnit.SECONDS.toNanos(9));
+    }
+    
+    private void start(double messagesPerSecond, Duration throttledPause) throws Exception {
+        journal = new NotificationJournal(dir.resolve("journal.log").toString(), false, 100, DataSize.ofMegabytes(16),
+                8, Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofMinutes(10));
+        journal.open();
+        executor = new NotificationExecutor("sms-test", NotificationExecutor.Mode.PLATFORM, 2, 10,
+                NotificationExecutor.RejectionPolicy.ABORT, 10, Duration.ofSeconds(5));
+        dispatcher = new SmsDispatcher(executor, journal, "test", messagesPerSecond, 1, throttledPause);
+        dispatcher.start();
+    }
+    
+    private void submit(SmsDispatcher.Priority priority, String coalescingKey, String from, String body) {
+        NotificationJournal.Entry entry = journal.append(NotificationJournal.Channel.SMS, "+999", null, body,
+                priority.name(), coalescingKey);
+        dispatcher.submit(priority, coalescingKey, from, entry, sending -> {
+            sent.add(sending.getBody());
+            journal.delivered(sending);
+        });
+    }
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Hundreds of checkouts racing for the same scarce products, each in its own
+ * transaction against a real database
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock;LOCK_TIMEOUT=30000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=32",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StockReservationService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockReservationConcurrencyTest {
+    
+    private static final int CHECKOUTS = 400;
+    private static final int THREADS = 64;
+    
+    @Autowired
+    private StockReservationService stockReservationService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @MockBean
+    private ProductService productService;
+    
+    @MockBean
+    private OutboxService outboxService;
+    
+    @MockBean
+    private SalesRollupService salesRollupService;
+    
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAll();
+    }
+    
+    @Test
+    void parallelCheckoutsNeverOversell() throws Exception {
+        Product product = productRepository.save(product("Flash sale", 100));
+        
+        int succeeded = runCheckouts(i -> List.of(line(product, 1 + i % 3)));
+        
+        int remaining = productRepository.findById(product.getId()).orElseThrow().getStockQuantity();
+        assertThat(remaining).isGreaterThanOrEqualTo(0).isLessThan(3);
+        assertThat(succeeded).isPositive();
+        assertThat(reserved.get()).isEqualTo(100 - remaining);
+        // Each committed reservation refreshes the product for the cache and search indexes
+        verify(productService, times(succeeded)).refreshProducts(argThat(ids -> ids.contains(product.getId())));
+    }
+    
+    @Test
+    void overlappingBasketsInOppositeOrderDoNotDeadlock() throws Exception {
+        Product first = productRepository.save(product("First", 150));
+        Product second = productRepository.save(product("Second", 150));
+        
+        // Half of the baskets list the products the other way round
+        int succeeded = runCheckouts(i -> i % 2 == 0
+                ? List.of(line(first, 1), line(second, 1))
+                : List.of(line(second, 1), line(first, 1)));
+        
+        assertThat(succeeded).isEqualTo(150);
+        assertThat(failedOtherThanStock.get()).isZero();
+        assertThat(productRepository.findById(first.getId()).orElseThrow().getStockQuantity()).isZero();
+        assertThat(productRepository.findById(second.getId()).orElseThrow().getStockQuantity()).isZero();
+    }
+    
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final AtomicInteger failedOtherThanStock = new AtomicInteger();
+    
+    /**
+     * Run the checkouts concurrently, each reserving its basket in its own
+     * transaction; returns how many got their stock
+     */
+    private int runCheckouts(java.util.function.IntFunction<List<OrderItem>> basket) throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < CHECKOUTS; i++) {
+            List<OrderItem> items = basket.apply(i);
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> stockReservationService.reserve(items));
+                    succeeded.incrementAndGet();
+                    reserved.addAndGet(items.stream().mapToInt(OrderItem::getQuantity).sum());
+                } catch (RuntimeException e) {
+                    if (!String.valueOf(e.getMessage()).startsWith("Insufficient stock")) {
+                        failedOtherThanStock.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        return succeeded.get();
+    }
+    
+    private static Product product(String name, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setCategory("Sale");
+        product.setPrice(10.0);
+        product.setStockQuantity(stock);
+        return product;
+    }
+    
+    private static OrderItem line(Product product, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setPrice(product.getPrice());
+        return item;
+    }
+}
\ No newline at end of file
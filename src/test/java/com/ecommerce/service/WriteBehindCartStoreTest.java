@@ -0,0 +1,122 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WriteBehindCartStoreTest {
+    
+    private static final Long USER_ID = 7L;
+    private static final Long PRODUCT_ID = 3L;
+    
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final ProductService productService = mock(ProductService.class);
+    private final List<Cart> storedCarts = new ArrayList<>();
+    private WriteBehindCartStore store;
+    
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        UserService userService = mock(UserService.class);
+        User user = new User();
+        user.setId(USER_ID);
+        when(userService.getUserById(USER_ID)).thenReturn(user);
+        Product product = ProductSearchIndexTest.product(PRODUCT_ID, "Lamp", "Home", null);
+        when(productService.getProductById(PRODUCT_ID)).thenReturn(product);
+        when(productService.getProductsByIds(any())).thenAnswer(inv ->
+                ((long[]) inv.getArgument(0)).length == 0 ? List.of() : List.of(product));
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.getReferenceById(PRODUCT_ID)).thenReturn(product);
+        when(cartRepository.findByUserId(USER_ID)).thenReturn(Optional.empty());
+        when(cartRepository.findByUserIdIn(any())).thenAnswer(inv -> List.copyOf(storedCarts));
+        when(cartRepository.save(any())).thenAnswer(inv -> {
+            Cart cart = inv.getArgument(0);
+            cart.setId(100L);
+            storedCarts.add(cart);
+            return cart;
+        });
+        
+        store = new WriteBehindCartStore(cartRepository, productRepository, userService, productService,
+                transactionManager, 200, Duration.ofMinutes(30));
+        store.addItem(USER_ID, PRODUCT_ID, 2);
+        store.flush();
+    }
+    
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    @Test
+    void rolledBackCheckoutKeepsTheCart() {
+        List<TransactionSynchronization> synchronizations = clearInTransaction();
+        assertThat(storedCarts.get(0).getItems()).isEmpty();
+        assertThat(quantities()).containsExactly(2);
+        
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        
+        assertThat(quantities()).containsExactly(2);
+        store.addItem(USER_ID, PRODUCT_ID, 1);
+        assertThat(quantities()).containsExactly(3);
+    }
+    
+    @Test
+    void committedCheckoutEmptiesTheCart() {
+        List<TransactionSynchronization> synchronizations = clearInTransaction();
+        
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        
+        assertThat(quantities()).isEmpty();
+        assertThat(store.getMetrics()).containsEntry("dirtyCarts", 0);
+    }
+    
+    @Test
+    void flushLeavesACartAloneWhileItsCheckoutIsOpen() {
+        List<TransactionSynchronization> synchronizations = clearInTransaction();
+        store.addItem(USER_ID, PRODUCT_ID, 1);
+        clearInvocations(cartRepository);
+        
+        store.flush();
+        verify(cartRepository, never()).findByUserIdIn(any());
+        
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        store.flush();
+        verify(cartRepository).findByUserIdIn(any());
+        assertThat(storedCarts.get(0).getItems()).extracting(CartItem::getQuantity).containsExactly(3);
+    }
+    
+    private List<TransactionSynchronization> clearInTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        store.clear(USER_ID);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        return synchronizations;
+    }
+    
+    private List<Integer> quantities() {
+        return store.getCart(USER_ID).getItems().stream().map(CartItem::getQuantity).toList();
+    }
+}
\ No newline at end of file
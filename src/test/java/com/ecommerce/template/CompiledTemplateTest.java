@@ -0,0 +1,91 @@
+package com.ecommerce.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledTemplateTest {
+    
+    private static final Currency USD = Currency.getInstance("USD");
+    
+    private record Line(String name, long cents) {
+    }
+    
+    private record Basket(String owner, List<Line> lines, long totalCents) {
+    }
+    
+    private final TemplateBindings<Basket> bindings = new TemplateBindings<Basket>()
+            .slot("owner", (basket, out) -> out.text(basket.owner()))
+            .slot("total", (basket, out) -> out.price(basket.totalCents()))
+            .section("lines", Basket::lines, new TemplateBindings<Line>()
+                    .slot("name", (line, out) -> out.text(line.name()))
+                    .slot("price", (line, out) -> out.price(line.cents())));
+    
+    @Test
+    void rendersSlotsAndRepeatsSections() {
+        CompiledTemplate<Basket> template = bindings.compile("<p>{{owner}}</p><ul>{{#lines}}<li>{{name}}: {{price}}</li>{{/lines}}</ul>");
+        
+        String html = render(template, new Basket("Ada", List.of(new Line("Tea", 450), new Line("Pot", 123_400)), 123_850),
+                Locale.US);
+        
+        assertThat(html).isEqualTo("<p>Ada</p><ul><li>Tea: $4.50</li><li>Pot: $1,234.00</li></ul>");
+    }
+    
+    @Test
+    void escapesSlotValuesButNotTheTemplateText() {
+        CompiledTemplate<Basket> template = bindings.compile("<b>{{owner}}</b>");
+        
+        assertThat(render(template, new Basket("<Ada & \"Bob\">", List.of(), 0), Locale.US))
+                .isEqualTo("<b>&lt;Ada &amp; &quot;Bob&quot;&gt;</b>");
+    }
+    
+    @Test
+    void pricesFollowTheLocale() {
+        CompiledTemplate<Basket> template = bindings.compile("{{total}}");
+        Basket basket = new Basket("Ada", List.of(), 123_450);
+        
+        assertThat(render(template, basket, Locale.US)).isEqualTo("$1,234.50");
+        // Some JDKs separate the symbol with a no-break space
+        assertThat(render(template, basket, Locale.GERMANY).replace('\u00a0', ' ')).isEqualTo("1.234,50 $");
+        assertThat(render(template, new Basket("Ada", List.of(), -5), Locale.US)).isEqualTo("-$0.05");
+    }
+    
+    @Test
+    void emptyOrMissingSectionRendersNothing() {
+        CompiledTemplate<Basket> template = bindings.compile("[{{#lines}}x{{/lines}}]");
+        
+        assertThat(render(template, new Basket("Ada", List.of(), 0), Locale.US)).isEqualTo("[]");
+        assertThat(render(template, new Basket("Ada", null, 0), Locale.US)).isEqualTo("[]");
+    }
+    
+    @Test
+    void brokenTemplatesFailToCompile() {
+        assertThatThrownBy(() -> bindings.compile("{{unknown}}")).hasMessageContaining("Unknown slot");
+        assertThatThrownBy(() -> bindings.compile("{{#unknown}}{{/unknown}}")).hasMessageContaining("Unknown section");
+        assertThatThrownBy(() -> bindings.compile("{{#lines}}{{name}}")).hasMessageContaining("not closed");
+        assertThatThrownBy(() -> bindings.compile("{{owner")).hasMessageContaining("Unclosed tag");
+        assertThatThrownBy(() -> bindings.compile("{{/lines}}")).hasMessageContaining("Unexpected");
+    }
+    
+    @Test
+    void outputIsReusableAcrossRenders() {
+        CompiledTemplate<Basket> template = bindings.compile("{{owner}}");
+        HtmlOutput out = new HtmlOutput(4, USD);
+        
+        template.render(new Basket("a fairly long name", List.of(), 0), out.reset(Locale.US));
+        template.render(new Basket("Ada", List.of(), 0), out.reset(Locale.US));
+        
+        assertThat(out.toString()).isEqualTo("Ada");
+    }
+    
+    private static String render(CompiledTemplate<Basket> template, Basket basket, Locale locale) {
+        HtmlOutput out = new HtmlOutput(16, USD).reset(locale);
+        template.render(basket, out);
+        return out.toString();
+    }
+}
\ No newline at end of file